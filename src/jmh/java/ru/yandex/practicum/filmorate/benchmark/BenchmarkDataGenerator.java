@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Random;
+
+public class BenchmarkDataGenerator {
+    private final static int MPA_COUNT = 5;
+    private final static int GENRE_COUNT = 7;
+    private final static int BATCH_SIZE = 1000;
+    private final static String ADD_USER_QUERY =
+            "INSERT INTO user (id, email, login, name, birthday) " +
+            "VALUES (?, ?, ?, ?, ?);";
+    private final static String ADD_FILM_QUERY =
+            "INSERT INTO film (id, name, description, release_date, duration, mpa_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?);";
+    private final static String ADD_GENRE_QUERY =
+            "INSERT INTO film_genre (film_id, genre_id) " +
+            "VALUES (?, ?);";
+    private final static String ADD_LIKE_QUERY =
+            "INSERT INTO film_like (film_id, user_id) " +
+            "VALUES (?, ?);";
+    private final static String ADD_FRIEND_QUERY =
+            "INSERT INTO friendship (user_id, friend_id) " +
+            "VALUES (?, ?);";
+    private final static String UPDATE_LIKES_COUNT_QUERY =
+            "UPDATE film AS f " +
+            "SET likes_count = (SELECT COUNT(*) FROM film_like AS fl WHERE fl.film_id = f.id);";
+    private final static String RESTART_IDENTITY_QUERY =
+            "ALTER TABLE %s ALTER COLUMN id RESTART WITH %d;";
+
+    private final int users;
+    private final int films;
+    private final int[] filmMpa;
+    private final int[][] filmGenres;
+    private final int[][] likes;
+    private final int[][] friendships;
+    private final Set<Long> likePairs = new HashSet<>();
+    private final Set<Long> friendshipPairs = new HashSet<>();
+
+    public BenchmarkDataGenerator(int users, int films, int likes, int friendships, long seed) {
+        if (users < 2 || films < 1) {
+            throw new IllegalArgumentException("At least 2 users and 1 film are required");
+        }
+        Random random = new Random(seed);
+        this.users = users;
+        this.films = films;
+        filmMpa = new int[films];
+        filmGenres = new int[films][];
+        for (int i = 0; i < films; i++) {
+            filmMpa[i] = 1 + random.nextInt(MPA_COUNT);
+            filmGenres[i] = random.ints(1, GENRE_COUNT + 1).distinct().limit(1 + random.nextInt(3)).toArray();
+        }
+        this.likes = generatePairs(random, films, users, Math.min(likes, films * users), likePairs, false);
+        this.friendships = generatePairs(random, users, users,
+                Math.min(friendships, users * (users - 1)), friendshipPairs, true);
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getFilms() {
+        return films;
+    }
+
+    public boolean hasLike(int filmIndex, int userIndex) {
+        return likePairs.contains(pair(filmIndex, userIndex));
+    }
+
+    public boolean hasFriendship(int userIndex, int friendIndex) {
+        return friendshipPairs.contains(pair(userIndex, friendIndex));
+    }
+
+    public void fillDatabase(JdbcTemplate jdbcTemplate) {
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            batchArgs.add(new Object[]{i + 1, email(i), login(i), "User " + i,
+                    Date.valueOf(birthday(i))});
+        }
+        batchUpdate(jdbcTemplate, ADD_USER_QUERY, batchArgs);
+        for (int i = 0; i < films; i++) {
+            batchArgs.add(new Object[]{i + 1, "Film " + i, "Description " + i,
+                    Date.valueOf(releaseDate(i)), duration(i), filmMpa[i]});
+        }
+        batchUpdate(jdbcTemplate, ADD_FILM_QUERY, batchArgs);
+        for (int i = 0; i < films; i++) {
+            for (int genreId : filmGenres[i]) {
+                batchArgs.add(new Object[]{i + 1, genreId});
+            }
+        }
+        batchUpdate(jdbcTemplate, ADD_GENRE_QUERY, batchArgs);
+        for (int[] like : likes) {
+            batchArgs.add(new Object[]{like[0] + 1, like[1] + 1});
+        }
+        batchUpdate(jdbcTemplate, ADD_LIKE_QUERY, batchArgs);
+        for (int[] friendship : friendships) {
+            batchArgs.add(new Object[]{friendship[0] + 1, friendship[1] + 1});
+        }
+        batchUpdate(jdbcTemplate, ADD_FRIEND_QUERY, batchArgs);
+        jdbcTemplate.update(UPDATE_LIKES_COUNT_QUERY);
+        jdbcTemplate.execute(String.format(RESTART_IDENTITY_QUERY, "user", users + 1));
+        jdbcTemplate.execute(String.format(RESTART_IDENTITY_QUERY, "film", films + 1));
+    }
+
+    public StorageIds fillStorages(UserStorage userStorage, FilmStorage filmStorage,
+                                   FilmLikeStorage filmLikeStorage, FriendshipStorage friendshipStorage) {
+        int[] userIds = new int[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = userStorage.addUser(new User(0, email(i), login(i), "User " + i, birthday(i))).getId();
+        }
+        int[] filmIds = new int[films];
+        for (int i = 0; i < films; i++) {
+            Film film = new Film(0, "Film " + i, "Description " + i, releaseDate(i), duration(i),
+                    new Mpa(filmMpa[i]), null, null);
+            for (int genreId : filmGenres[i]) {
+                film.getGenres().add(genreId);
+            }
+            filmIds[i] = filmStorage.addFilm(film).getId();
+        }
+        for (int[] like : likes) {
+            filmLikeStorage.addLike(filmIds[like[0]], userIds[like[1]]);
+        }
+        for (int[] friendship : friendships) {
+            friendshipStorage.addFriend(userIds[friendship[0]], userIds[friendship[1]]);
+        }
+        return new StorageIds(userIds, filmIds);
+    }
+
+    public static StorageIds sequentialIds(int users, int films) {
+        int[] userIds = new int[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = i + 1;
+        }
+        int[] filmIds = new int[films];
+        for (int i = 0; i < films; i++) {
+            filmIds[i] = i + 1;
+        }
+        return new StorageIds(userIds, filmIds);
+    }
+
+    private static int[][] generatePairs(Random random, int left, int right, int count,
+                                         Set<Long> pairs, boolean distinct) {
+        int[][] result = new int[count][];
+        int generated = 0;
+        while (generated < count) {
+            int first = random.nextInt(left);
+            int second = random.nextInt(right);
+            if (distinct && first == second) {
+                continue;
+            }
+            if (pairs.add(pair(first, second))) {
+                result[generated++] = new int[]{first, second};
+            }
+        }
+        return result;
+    }
+
+    private static void batchUpdate(JdbcTemplate jdbcTemplate, String query, List<Object[]> batchArgs) {
+        for (int from = 0; from < batchArgs.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(query, batchArgs.subList(from, Math.min(from + BATCH_SIZE, batchArgs.size())));
+        }
+        batchArgs.clear();
+    }
+
+    private static long pair(int first, int second) {
+        return ((long) first << 32) | second;
+    }
+
+    private static String email(int index) {
+        return "user" + index + "@filmorate.ru";
+    }
+
+    private static String login(int index) {
+        StringBuilder login = new StringBuilder("user");
+        int value = index;
+        do {
+            login.append((char) ('a' + value % 26));
+            value /= 26;
+        } while (value > 0);
+        return login.toString();
+    }
+
+    private static LocalDate birthday(int index) {
+        return LocalDate.of(1970, 1, 1).plusDays(index % 15000);
+    }
+
+    private static LocalDate releaseDate(int index) {
+        return LocalDate.of(1950, 1, 1).plusDays(index % 25000);
+    }
+
+    private static int duration(int index) {
+        return 60 + index % 120;
+    }
+
+    public static class StorageIds {
+        private final int[] userIds;
+        private final int[] filmIds;
+
+        private StorageIds(int[] userIds, int[] filmIds) {
+            this.userIds = userIds;
+            this.filmIds = filmIds;
+        }
+
+        public int userId(int index) {
+            return userIds[index];
+        }
+
+        public int filmId(int index) {
+            return filmIds[index];
+        }
+    }
+}
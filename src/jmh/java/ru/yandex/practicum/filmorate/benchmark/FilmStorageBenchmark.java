@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Benchmark
+    public List<Film> getFilms(StorageState state) {
+        return state.filmStorage.getFilms();
+    }
+
+    @Benchmark
+    public Film getFilmById(StorageState state) {
+        int index = ThreadLocalRandom.current().nextInt(state.generator.getFilms());
+        return state.filmStorage.getFilmById(state.ids.filmId(index));
+    }
+
+    @Benchmark
+    public boolean addAndDeleteLike(StorageState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmIndex;
+        int userIndex;
+        do {
+            filmIndex = random.nextInt(state.generator.getFilms());
+            userIndex = random.nextInt(state.generator.getUsers());
+        } while (state.generator.hasLike(filmIndex, userIndex));
+        int filmId = state.ids.filmId(filmIndex);
+        int userId = state.ids.userId(userIndex);
+        state.filmLikeStorage.addLike(filmId, userId);
+        return state.filmLikeStorage.deleteLike(filmId, userId);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.util.IdListDecoder;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class IdListDecoderBenchmark {
+    @Param({"3", "100", "10000"})
+    public int ids;
+
+    private String idsRaw;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringJoiner joiner = new StringJoiner(",");
+        int id = 0;
+        for (int i = 0; i < ids; i++) {
+            id += 1 + random.nextInt(100);
+            joiner.add(Integer.toString(id));
+        }
+        idsRaw = joiner.toString();
+    }
+
+    @Benchmark
+    public Set<Integer> splitIntoHashSet() {
+        Set<Integer> result = new HashSet<>();
+        for (String idRaw : idsRaw.split(",")) {
+            result.add(Integer.parseInt(idRaw));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public IntSet decodeIntoIntSet() {
+        IntSet result = new IntSet();
+        IdListDecoder.decode(idsRaw, result);
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseFIlmGenreStorage;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseFilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseFilmStorage;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseUserStorage;
+import ru.yandex.practicum.filmorate.storage.db.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryUserStorage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+public class StorageState {
+    private final static AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    @Param({"db", "mem"})
+    public String backend;
+    @Param({"1000"})
+    public int users;
+    @Param({"1000"})
+    public int films;
+    @Param({"20000"})
+    public int likes;
+    @Param({"20000"})
+    public int friendships;
+    @Param({"42"})
+    public long seed;
+
+    public BenchmarkDataGenerator generator;
+    public BenchmarkDataGenerator.StorageIds ids;
+    public FilmStorage filmStorage;
+    public UserStorage userStorage;
+    public FilmLikeStorage filmLikeStorage;
+    public FriendshipStorage friendshipStorage;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new BenchmarkDataGenerator(users, films, likes, friendships, seed);
+        switch (backend) {
+            case "db":
+                setUpDatabase();
+                break;
+            case "mem":
+                setUpMemory();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource != null) {
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    private void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:benchmark" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        generator.fillDatabase(jdbcTemplate);
+
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(jdbcTemplate);
+        referenceDataCache.refresh();
+        filmLikeStorage = new DatabaseFilmLikeStorage(jdbcTemplate);
+        filmStorage = new DatabaseFilmStorage(jdbcTemplate, namedParameterJdbcTemplate,
+                new DatabaseFIlmGenreStorage(jdbcTemplate), filmLikeStorage, referenceDataCache);
+        userStorage = new DatabaseUserStorage(jdbcTemplate, namedParameterJdbcTemplate);
+        friendshipStorage = new DatabaseFriendshipStorage(jdbcTemplate);
+        ids = BenchmarkDataGenerator.sequentialIds(users, films);
+    }
+
+    private void setUpMemory() {
+        InMemoryUserStorage inMemoryUserStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage inMemoryFilmStorage = new InMemoryFilmStorage();
+        userStorage = inMemoryUserStorage;
+        filmStorage = inMemoryFilmStorage;
+        filmLikeStorage = new InMemoryFilmLikeStorage(inMemoryFilmStorage, inMemoryUserStorage);
+        friendshipStorage = new InMemoryFriendshipStorage(inMemoryUserStorage);
+        ids = generator.fillStorages(userStorage, filmStorage, filmLikeStorage, friendshipStorage);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStorageBenchmark {
+    @Benchmark
+    public void addAndDeleteFriend(StorageState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int users = state.generator.getUsers();
+        int index;
+        int friendIndex;
+        do {
+            index = random.nextInt(users);
+            friendIndex = (index + 1 + random.nextInt(users - 1)) % users;
+        } while (state.generator.hasFriendship(index, friendIndex));
+        int id = state.ids.userId(index);
+        int friendId = state.ids.userId(friendIndex);
+        state.friendshipStorage.addFriend(id, friendId);
+        state.friendshipStorage.deleteFriend(id, friendId);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+public class Bulkhead {
+    private final ThreadPoolExecutor executor;
+
+    public Bulkhead(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+public class BulkheadConfig {
+    private final static long KEEP_ALIVE_SECONDS = 60;
+    private final MeterRegistry meterRegistry;
+    private final BulkheadThreadFactory threadFactory;
+
+    public BulkheadConfig(MeterRegistry meterRegistry,
+                          ObjectProvider<BulkheadThreadFactory> threadFactory) {
+        this.meterRegistry = meterRegistry;
+        this.threadFactory = threadFactory.getIfAvailable(
+                () -> name -> new CustomizableThreadFactory(name + "-"));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead heavyQueryBulkhead(
+            @Value("${filmorate.bulkhead.heavy.threads:4}") int threads,
+            @Value("${filmorate.bulkhead.heavy.queue-capacity:100}") int queueCapacity) {
+        return bulkhead("heavy-query", threads, queueCapacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead lightQueryBulkhead(
+            @Value("${filmorate.bulkhead.light.threads:16}") int threads,
+            @Value("${filmorate.bulkhead.light.queue-capacity:1000}") int queueCapacity) {
+        return bulkhead("light-query", threads, queueCapacity);
+    }
+
+    private Bulkhead bulkhead(String name, int threads, int queueCapacity) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("The number of tasks rejected because the bulkhead was saturated")
+                .tag("name", name)
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory.create(name), (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException(String.format(
+                            "Bulkhead %s is saturated (%d active, %d queued)",
+                            name, pool.getActiveCount(), pool.getQueue().size()));
+                });
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+        log.info("BulkheadConfig.bulkhead: bulkhead {} created with {} threads " +
+                 "and a queue of {}", name, threads, queueCapacity);
+        return new Bulkhead(executor);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.util.concurrent.ThreadFactory;
+
+public interface BulkheadThreadFactory {
+    ThreadFactory create(String bulkheadName);
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+class CopyingCache implements Cache {
+    private final Cache target;
+    private final UnaryOperator<Object> copier;
+
+    CopyingCache(Cache target, UnaryOperator<Object> copier) {
+        this.target = target;
+        this.copier = copier;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return copy(target.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        return (T) copier.apply(target.get(key, type));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) copier.apply(target.get(key, () -> copier.apply(valueLoader.call())));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, copier.apply(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return copy(target.putIfAbsent(key, copier.apply(value)));
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private ValueWrapper copy(ValueWrapper wrapper) {
+        return wrapper == null ? null : new SimpleValueWrapper(copier.apply(wrapper.get()));
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
+
+@Configuration
+public class ResourceVersionConfig {
+    @Bean
+    public ResourceVersion filmsVersion() {
+        return new ResourceVersion("films");
+    }
+
+    @Bean
+    public ResourceVersion usersVersion() {
+        return new ResourceVersion("users");
+    }
+}
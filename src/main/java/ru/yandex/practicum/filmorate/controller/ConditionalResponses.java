@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+final class ConditionalResponses {
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<T> versioned(T body, long version, Instant updatedAt) {
+        return ResponseEntity.ok()
+                .eTag("\"" + version + "-" + Long.toString(updatedAt.toEpochMilli(), 36) + "\"")
+                .lastModified(updatedAt)
+                .body(body);
+    }
+
+    static boolean isNotModified(WebRequest request, ResourceVersion version, Object... params) {
+        String variant = Arrays.stream(params)
+                .map(param -> param == null ? "_" : param.toString())
+                .collect(Collectors.joining("."));
+        return request.checkNotModified(version.getETag(variant), version.getLastModified());
+    }
+}
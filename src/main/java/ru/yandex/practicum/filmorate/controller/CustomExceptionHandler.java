@@ -5,10 +5,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import ru.yandex.practicum.filmorate.exception.*;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice
@@ -69,6 +71,20 @@ public class CustomExceptionHandler {
     public ErrorResponse handleValidationException(ValidationException e) {
         return new ErrorResponse("InvalidObject", e.getMessage());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleRejectedExecutionException(RejectedExecutionException e) {
+        log.warn("RejectedExecutionException: {}", e.getMessage());
+        return new ErrorResponse("ServiceUnavailable", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleAsyncRequestTimeoutException(AsyncRequestTimeoutException e) {
+        log.warn("AsyncRequestTimeoutException: request was not completed in time");
+        return new ErrorResponse("ServiceUnavailable", "The request was not completed in time");
+    }
 }
 
 class ErrorResponse {
@@ -2,37 +2,94 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.config.Bulkhead;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final BulkImportService bulkImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final Bulkhead heavyQueryBulkhead;
+    private final Bulkhead lightQueryBulkhead;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, BulkImportService bulkImportService,
+                          JsonArrayStreamer jsonArrayStreamer,
+                          @Qualifier("heavyQueryBulkhead") Bulkhead heavyQueryBulkhead,
+                          @Qualifier("lightQueryBulkhead") Bulkhead lightQueryBulkhead) {
         this.filmService = filmService;
+        this.bulkImportService = bulkImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
+        this.heavyQueryBulkhead = heavyQueryBulkhead;
+        this.lightQueryBulkhead = lightQueryBulkhead;
     }
 
     @GetMapping
-    public List<Film> getFilms() {
-        return filmService.getFilmsList();
+    public CompletableFuture<List<Film>> getFilms(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest request) {
+        if (ConditionalResponses.isNotModified(request, filmService.getFilmsVersion(),
+                                               after, limit)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            return heavyQueryBulkhead.submit(filmService::getFilmsList);
+        }
+        return heavyQueryBulkhead.submit(() -> filmService.getFilmsPage(after, limit));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        return jsonArrayStreamer.stream(filmService::streamFilms);
     }
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable int id) {
-        return filmService.getFilmById(id);
+    public CompletableFuture<ResponseEntity<Film>> getFilmById(@PathVariable int id) {
+        return lightQueryBulkhead.submit(() -> filmService.getFilmById(id))
+                .thenApply(film -> ConditionalResponses.versioned(film, film.getVersion(),
+                                                                  film.getUpdatedAt()));
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public CompletableFuture<List<Film>> getPopularFilms(
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer mpaId,
+            WebRequest request) {
+        if (ConditionalResponses.isNotModified(request, filmService.getFilmsVersion(),
+                                               count, genreId, year, mpaId)) {
+            return null;
+        }
+        return heavyQueryBulkhead.submit(() ->
+                filmService.getPopularFilms(count, genreId, year, mpaId));
+    }
+
+    @GetMapping("/search")
+    public CompletableFuture<List<Film>> searchFilms(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "title,description") String by,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "10") int limit) {
+        return heavyQueryBulkhead.submit(() -> filmService.searchFilms(query, by, sort, limit));
     }
 
     @PostMapping
@@ -40,6 +97,11 @@ public class FilmController {
         return filmService.createFilm(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public BulkImportResult importFilms(InputStream body) throws IOException {
+        return bulkImportService.importFilms(body);
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film newFilm) {
         return filmService.updateFilm(newFilm);
@@ -54,6 +116,4 @@ public class FilmController {
     public void deleteLike(@PathVariable int id, @PathVariable int userId) {
         filmService.deleteLike(id, userId);
     }
-
-
 }
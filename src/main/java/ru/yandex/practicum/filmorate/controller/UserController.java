@@ -2,32 +2,74 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.config.Bulkhead;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final BulkImportService bulkImportService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final Bulkhead heavyQueryBulkhead;
+    private final Bulkhead lightQueryBulkhead;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService,
+                          BulkImportService bulkImportService, JsonArrayStreamer jsonArrayStreamer,
+                          @Qualifier("heavyQueryBulkhead") Bulkhead heavyQueryBulkhead,
+                          @Qualifier("lightQueryBulkhead") Bulkhead lightQueryBulkhead) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.bulkImportService = bulkImportService;
+        this.jsonArrayStreamer = jsonArrayStreamer;
+        this.heavyQueryBulkhead = heavyQueryBulkhead;
+        this.lightQueryBulkhead = lightQueryBulkhead;
     }
 
     @GetMapping
-    public List<User> getUsers() {
-        return userService.getUsersList();
+    public CompletableFuture<List<User>> getUsers(@RequestParam(required = false) Integer after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest request) {
+        if (ConditionalResponses.isNotModified(request, userService.getUsersVersion(),
+                                               after, limit)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            return heavyQueryBulkhead.submit(userService::getUsersList);
+        }
+        return heavyQueryBulkhead.submit(() -> userService.getUsersPage(after, limit));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        return jsonArrayStreamer.stream(userService::streamUsers);
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable int id) {
-        return userService.getUserById(id);
+    public CompletableFuture<ResponseEntity<User>> getUserById(@PathVariable int id) {
+        return lightQueryBulkhead.submit(() -> userService.getUserById(id))
+                .thenApply(user -> ConditionalResponses.versioned(user, user.getVersion(),
+                                                                  user.getUpdatedAt()));
     }
 
     @PostMapping
@@ -35,6 +77,11 @@ public class UserController {
         return userService.createUser(user);
     }
 
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        return bulkImportService.importUsers(body);
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User newUser) {
         return userService.updateUser(newUser);
@@ -51,12 +98,25 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriendsById(@PathVariable int id) {
-        return userService.getFriendsListById(id);
+    public CompletableFuture<List<User>> getFriendsById(@PathVariable int id) {
+        return heavyQueryBulkhead.submit(() -> userService.getFriendsListById(id));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public List<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId) {
-        return userService.getCommonFriends(id, otherId);
+    public CompletableFuture<List<User>> getCommonFriends(@PathVariable int id,
+                                                          @PathVariable int otherId) {
+        return heavyQueryBulkhead.submit(() -> userService.getCommonFriends(id, otherId));
+    }
+
+    @GetMapping("/{id}/recommendations/friends")
+    public CompletableFuture<List<User>> getFriendRecommendations(
+            @PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        return heavyQueryBulkhead.submit(() -> userService.getFriendRecommendations(id, limit));
+    }
+
+    @GetMapping("/{id}/recommendations/films")
+    public CompletableFuture<List<Film>> getFilmRecommendations(
+            @PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        return heavyQueryBulkhead.submit(() -> filmService.getFilmRecommendations(id, limit));
     }
 }
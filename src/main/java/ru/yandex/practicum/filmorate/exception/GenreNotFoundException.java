@@ -1,7 +1,21 @@
 package ru.yandex.practicum.filmorate.exception;
 
 public class GenreNotFoundException extends RuntimeException {
+    private final int id;
+
     public GenreNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.id = 0;
+    }
+
+    public GenreNotFoundException(int id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : String.format("There is no genre with id %d", id);
     }
 }
@@ -1,7 +1,21 @@
 package ru.yandex.practicum.filmorate.exception;
 
 public class MpaNotFoundException extends RuntimeException {
+    private final int id;
+
     public MpaNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.id = 0;
+    }
+
+    public MpaNotFoundException(int id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : String.format("There is no MPA with id %d", id);
     }
 }
@@ -1,7 +1,21 @@
 package ru.yandex.practicum.filmorate.exception;
 
 public class UserNotFoundException extends RuntimeException {
+    private final int id;
+
     public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.id = 0;
+    }
+
+    public UserNotFoundException(int id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : String.format("There is no user with id %d", id);
     }
 }
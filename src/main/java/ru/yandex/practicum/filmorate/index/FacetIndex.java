@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class FacetIndex {
+    private final FilmStorage filmStorage;
+    private final Map<Integer, BitSet> filmsByGenre = new HashMap<>();
+    private final Map<Integer, BitSet> filmsByYear = new HashMap<>();
+    private final Map<Integer, BitSet> filmsByMpa = new HashMap<>();
+    private final Map<Integer, Facets> facetsByFilm = new HashMap<>();
+
+    @Autowired
+    public FacetIndex(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public synchronized void init() {
+        filmsByGenre.clear();
+        filmsByYear.clear();
+        filmsByMpa.clear();
+        facetsByFilm.clear();
+        filmStorage.streamFilms(this::addFilm);
+        log.info("FacetIndex.init: facets of {} films loaded", facetsByFilm.size());
+    }
+
+    public synchronized BitSet getFilms(Integer genreId, Integer year, Integer mpaId) {
+        BitSet films = null;
+        films = intersect(films, filmsByGenre, genreId);
+        films = intersect(films, filmsByYear, year);
+        films = intersect(films, filmsByMpa, mpaId);
+        return films;
+    }
+
+    public synchronized void addFilm(Film film) {
+        removeFilm(film.getId());
+        Facets facets = new Facets(film.getGenres().toIntArray(), film.getReleaseDate().getYear(),
+                                   film.getMpa().getId());
+        for (int genreId : facets.genreIds) {
+            set(filmsByGenre, genreId, film.getId());
+        }
+        set(filmsByYear, facets.year, film.getId());
+        set(filmsByMpa, facets.mpaId, film.getId());
+        facetsByFilm.put(film.getId(), facets);
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Facets facets = facetsByFilm.remove(filmId);
+        if (facets == null) {
+            return;
+        }
+        for (int genreId : facets.genreIds) {
+            clear(filmsByGenre, genreId, filmId);
+        }
+        clear(filmsByYear, facets.year, filmId);
+        clear(filmsByMpa, facets.mpaId, filmId);
+    }
+
+    private static BitSet intersect(BitSet films, Map<Integer, BitSet> index, Integer key) {
+        if (key == null) {
+            return films;
+        }
+        BitSet facet = index.get(key);
+        if (facet == null) {
+            return new BitSet();
+        }
+        if (films == null) {
+            return (BitSet) facet.clone();
+        }
+        films.and(facet);
+        return films;
+    }
+
+    private static void set(Map<Integer, BitSet> index, int key, int filmId) {
+        index.computeIfAbsent(key, k -> new BitSet()).set(filmId);
+    }
+
+    private static void clear(Map<Integer, BitSet> index, int key, int filmId) {
+        BitSet films = index.get(key);
+        if (films != null) {
+            films.clear(filmId);
+            if (films.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static class Facets {
+        private final int[] genreIds;
+        private final int year;
+        private final int mpaId;
+
+        private Facets(int[] genreIds, int year, int mpaId) {
+            this.genreIds = genreIds;
+            this.year = year;
+            this.mpaId = mpaId;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@Component
+public class FilmRecommender {
+    private final static int SIMILAR_USERS_LIMIT = 50;
+    private final LikeIndex likeIndex;
+
+    @Autowired
+    public FilmRecommender(LikeIndex likeIndex) {
+        this.likeIndex = likeIndex;
+    }
+
+    public int[] recommend(int userId, int limit) {
+        int[] likedFilms = likeIndex.getFilms(userId);
+        int[][] usersByLikedFilm = new int[likedFilms.length][];
+        for (int i = 0; i < likedFilms.length; i++) {
+            usersByLikedFilm[i] = likeIndex.getUsers(likedFilms[i]);
+        }
+        long[] similarUsers = WeightedTopK.compute(usersByLikedFilm, null,
+                candidate -> candidate == userId, SIMILAR_USERS_LIMIT);
+
+        int[][] filmsBySimilarUser = new int[similarUsers.length][];
+        int[] overlaps = new int[similarUsers.length];
+        for (int i = 0; i < similarUsers.length; i++) {
+            filmsBySimilarUser[i] = likeIndex.getFilms(WeightedTopK.idOf(similarUsers[i]));
+            overlaps[i] = WeightedTopK.scoreOf(similarUsers[i]);
+        }
+        long[] films = WeightedTopK.compute(filmsBySimilarUser, overlaps,
+                candidate -> SortedIntArrays.contains(likedFilms, candidate), limit);
+        return WeightedTopK.ids(films);
+    }
+}
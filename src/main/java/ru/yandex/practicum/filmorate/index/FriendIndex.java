@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class FriendIndex {
+    private final FriendshipStorage friendshipStorage;
+    private final Map<Integer, int[]> friends = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FriendIndex(FriendshipStorage friendshipStorage) {
+        this.friendshipStorage = friendshipStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload(friendshipStorage.getFriendIds());
+    }
+
+    public synchronized void reload(Map<Integer, IntSet> friendIds) {
+        friends.clear();
+        friendIds.forEach((id, ids) -> {
+            if (!ids.isEmpty()) {
+                friends.put(id, ids.toIntArray());
+            }
+        });
+        log.info("FriendIndex.reload: friends of {} users loaded", friends.size());
+    }
+
+    public int[] getFriends(int id) {
+        return friends.getOrDefault(id, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getCommonFriends(int id, int otherId) {
+        return SortedIntArrays.intersect(getFriends(id), getFriends(otherId));
+    }
+
+    public void addFriend(int id, int friendId) {
+        friends.compute(id, (key, ids) -> SortedIntArrays.insert(ids == null ? SortedIntArrays.EMPTY : ids, friendId));
+    }
+
+    public void deleteFriend(int id, int friendId) {
+        friends.computeIfPresent(id, (key, ids) -> {
+            int[] updated = SortedIntArrays.remove(ids, friendId);
+            return updated.length == 0 ? null : updated;
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@Component
+public class FriendRecommender {
+    private final FriendIndex friendIndex;
+
+    @Autowired
+    public FriendRecommender(FriendIndex friendIndex) {
+        this.friendIndex = friendIndex;
+    }
+
+    public int[] recommend(int id, int limit) {
+        int[] friends = friendIndex.getFriends(id);
+        int[][] friendsOfFriends = new int[friends.length][];
+        for (int i = 0; i < friends.length; i++) {
+            friendsOfFriends[i] = friendIndex.getFriends(friends[i]);
+        }
+        long[] ranks = WeightedTopK.compute(friendsOfFriends, null,
+                candidate -> candidate == id || SortedIntArrays.contains(friends, candidate), limit);
+        return WeightedTopK.ids(ranks);
+    }
+}
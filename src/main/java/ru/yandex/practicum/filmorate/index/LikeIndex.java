@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class LikeIndex {
+    private final FilmLikeStorage filmLikeStorage;
+    private final Map<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LikeIndex(FilmLikeStorage filmLikeStorage) {
+        this.filmLikeStorage = filmLikeStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload(filmLikeStorage.getLikes());
+    }
+
+    public synchronized void reload(Map<Integer, IntSet> likes) {
+        usersByFilm.clear();
+        filmsByUser.clear();
+        Map<Integer, IntSet> films = new HashMap<>();
+        likes.forEach((filmId, userIds) -> {
+            if (!userIds.isEmpty()) {
+                usersByFilm.put(filmId, userIds.toIntArray());
+                userIds.forEachInt(userId -> films.computeIfAbsent(userId, id -> new IntSet()).add(filmId));
+            }
+        });
+        films.forEach((userId, filmIds) -> filmsByUser.put(userId, filmIds.toIntArray()));
+        log.info("LikeIndex.reload: likes of {} films by {} users loaded",
+                 usersByFilm.size(), filmsByUser.size());
+    }
+
+    public int[] getUsers(int filmId) {
+        return usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getFilms(int userId) {
+        return filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public synchronized boolean addLike(int filmId, int userId) {
+        int[] users = getUsers(filmId);
+        if (SortedIntArrays.contains(users, userId)) {
+            return false;
+        }
+        usersByFilm.put(filmId, SortedIntArrays.insert(users, userId));
+        filmsByUser.put(userId, SortedIntArrays.insert(getFilms(userId), filmId));
+        return true;
+    }
+
+    public synchronized boolean deleteLike(int filmId, int userId) {
+        int[] users = getUsers(filmId);
+        if (!SortedIntArrays.contains(users, userId)) {
+            return false;
+        }
+        put(usersByFilm, filmId, SortedIntArrays.remove(users, userId));
+        put(filmsByUser, userId, SortedIntArrays.remove(getFilms(userId), filmId));
+        return true;
+    }
+
+    public synchronized void addFilm(int filmId, Collection<Integer> userIds) {
+        userIds.forEach(userId -> addLike(filmId, userId));
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        for (int userId : getUsers(filmId)) {
+            put(filmsByUser, userId, SortedIntArrays.remove(getFilms(userId), filmId));
+        }
+        usersByFilm.remove(filmId);
+    }
+
+    private static void put(Map<Integer, int[]> index, int key, int[] ids) {
+        if (ids.length == 0) {
+            index.remove(key);
+        } else {
+            index.put(key, ids);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.Comparator;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class PopularityLeaderboard {
+    private final static int SORT_CANDIDATES_THRESHOLD = 4096;
+    private final FilmLikeStorage filmLikeStorage;
+    private final Map<Integer, Integer> likesCount = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(Comparator
+            .comparingInt((Entry entry) -> entry.likes).reversed()
+            .thenComparingInt(entry -> entry.filmId));
+
+    @Autowired
+    public PopularityLeaderboard(FilmLikeStorage filmLikeStorage) {
+        this.filmLikeStorage = filmLikeStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload(filmLikeStorage.getLikesCount());
+    }
+
+    public synchronized void reload(Map<Integer, Integer> counts) {
+        likesCount.clear();
+        ranking.clear();
+        counts.forEach(this::put);
+        log.info("PopularityLeaderboard.reload: {} films loaded", likesCount.size());
+    }
+
+    public List<Integer> getTop(int count) {
+        return getTop(count, filmId -> true);
+    }
+
+    public synchronized List<Integer> getTop(int count, IntPredicate filter) {
+        List<Integer> top = new ArrayList<>(Math.max(0, Math.min(count, ranking.size())));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            int filmId = iterator.next().filmId;
+            if (filter.test(filmId)) {
+                top.add(filmId);
+            }
+        }
+        return top;
+    }
+
+    public synchronized List<Integer> getTop(int count, BitSet candidates) {
+        if (candidates.cardinality() > SORT_CANDIDATES_THRESHOLD) {
+            return getTop(count, candidates::get);
+        }
+        return candidates.stream()
+                .filter(likesCount::containsKey)
+                .mapToObj(filmId -> new Entry(filmId, likesCount.get(filmId)))
+                .sorted(ranking.comparator())
+                .limit(count)
+                .map(entry -> entry.filmId)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized int getLikesCount(int filmId) {
+        return likesCount.getOrDefault(filmId, 0);
+    }
+
+    public synchronized void addFilm(int filmId, int likes) {
+        removeFilm(filmId);
+        put(filmId, likes);
+    }
+
+    public synchronized void removeFilm(int filmId) {
+        Integer likes = likesCount.remove(filmId);
+        if (likes != null) {
+            ranking.remove(new Entry(filmId, likes));
+        }
+    }
+
+    public synchronized void incrementLikes(int filmId) {
+        addFilm(filmId, getLikesCount(filmId) + 1);
+    }
+
+    public synchronized void decrementLikes(int filmId) {
+        addFilm(filmId, Math.max(0, getLikesCount(filmId) - 1));
+    }
+
+    private void put(int filmId, int likes) {
+        likesCount.put(filmId, likes);
+        ranking.add(new Entry(filmId, likes));
+    }
+
+    private static class Entry {
+        private final int filmId;
+        private final int likes;
+
+        private Entry(int filmId, int likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+    }
+}
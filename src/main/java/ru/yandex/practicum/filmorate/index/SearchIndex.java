@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class SearchIndex {
+    public enum Field {
+        TITLE,
+        DESCRIPTION
+    }
+
+    private final FilmStorage filmStorage;
+    private final Map<Field, NavigableMap<String, int[]>> postings = new HashMap<>();
+    private final Map<Integer, Map<Field, Set<String>>> tokensByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public SearchIndex(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+        for (Field field : Field.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            tokensByFilm.clear();
+            filmStorage.streamFilms(this::addFilm);
+            log.info("SearchIndex.init: {} films indexed", tokensByFilm.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BitSet search(String query, Set<Field> fields) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || fields.isEmpty()) {
+            return new BitSet();
+        }
+        lock.readLock().lock();
+        try {
+            BitSet films = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1;
+                BitSet matches = new BitSet();
+                for (Field field : fields) {
+                    collect(postings.get(field), tokens.get(i), prefix, matches);
+                }
+                if (films == null) {
+                    films = matches;
+                } else {
+                    films.and(matches);
+                }
+                if (films.isEmpty()) {
+                    break;
+                }
+            }
+            return films;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(film.getId());
+            Map<Field, Set<String>> tokens = Map.of(
+                    Field.TITLE, new LinkedHashSet<>(tokenize(film.getName())),
+                    Field.DESCRIPTION, new LinkedHashSet<>(tokenize(film.getDescription())));
+            tokens.forEach((field, fieldTokens) -> fieldTokens.forEach(token ->
+                    postings.get(field).merge(token, new int[]{film.getId()},
+                            (ids, id) -> SortedIntArrays.insert(ids, film.getId()))));
+            tokensByFilm.put(film.getId(), tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            Map<Field, Set<String>> tokens = tokensByFilm.remove(filmId);
+            if (tokens == null) {
+                return;
+            }
+            tokens.forEach((field, fieldTokens) -> fieldTokens.forEach(token ->
+                    postings.get(field).computeIfPresent(token, (key, ids) -> {
+                        int[] updated = SortedIntArrays.remove(ids, filmId);
+                        return updated.length == 0 ? null : updated;
+                    })));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i <= text.length()) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(normalize(codePoint));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return tokens;
+    }
+
+    private static int normalize(int codePoint) {
+        int lowerCase = Character.toLowerCase(codePoint);
+        return lowerCase == 'ё' ? 'е' : lowerCase;
+    }
+
+    private static void collect(NavigableMap<String, int[]> index, String token, boolean prefix,
+                                BitSet matches) {
+        if (!prefix) {
+            int[] ids = index.get(token);
+            if (ids != null) {
+                set(matches, ids);
+            }
+            return;
+        }
+        for (int[] ids : index.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+            set(matches, ids);
+        }
+    }
+
+    private static void set(BitSet matches, int[] ids) {
+        for (int id : ids) {
+            matches.set(id);
+        }
+    }
+}
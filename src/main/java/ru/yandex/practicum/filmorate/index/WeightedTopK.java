@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+final class WeightedTopK {
+    private final static int RANGE_SIZE = 4096;
+
+    private WeightedTopK() {
+    }
+
+    static long[] compute(int[][] lists, int[] weights, IntPredicate excluded, int limit) {
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (int[] ids : lists) {
+            if (ids.length > 0) {
+                minId = Math.min(minId, ids[0]);
+                maxId = Math.max(maxId, ids[ids.length - 1]);
+            }
+        }
+        if (minId > maxId || limit <= 0) {
+            return new long[0];
+        }
+        RangeTask task = new RangeTask(lists, weights, excluded, limit, minId, maxId + 1L);
+        long[] ranks = ForkJoinPool.commonPool().invoke(task).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        Arrays.sort(ranks);
+        for (int i = 0, j = ranks.length - 1; i < j; i++, j--) {
+            long rank = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = rank;
+        }
+        return ranks;
+    }
+
+    static int idOf(long rank) {
+        return Integer.MAX_VALUE - (int) rank;
+    }
+
+    static int scoreOf(long rank) {
+        return (int) (rank >>> 32);
+    }
+
+    static int[] ids(long[] ranks) {
+        return Arrays.stream(ranks).mapToInt(WeightedTopK::idOf).toArray();
+    }
+
+    private static long rank(int id, int score) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - id);
+    }
+
+    private static void offer(PriorityQueue<Long> top, long rank, int limit) {
+        if (top.size() < limit) {
+            top.add(rank);
+        } else if (top.peek() < rank) {
+            top.poll();
+            top.add(rank);
+        }
+    }
+
+    private static class RangeTask extends RecursiveTask<PriorityQueue<Long>> {
+        private final int[][] lists;
+        private final int[] weights;
+        private final IntPredicate excluded;
+        private final int limit;
+        private final long from;
+        private final long to;
+
+        private RangeTask(int[][] lists, int[] weights, IntPredicate excluded, int limit, long from, long to) {
+            this.lists = lists;
+            this.weights = weights;
+            this.excluded = excluded;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PriorityQueue<Long> compute() {
+            if (to - from <= RANGE_SIZE) {
+                return computeRange();
+            }
+            long middle = from + (to - from) / 2;
+            RangeTask left = new RangeTask(lists, weights, excluded, limit, from, middle);
+            RangeTask right = new RangeTask(lists, weights, excluded, limit, middle, to);
+            left.fork();
+            PriorityQueue<Long> top = right.compute();
+            for (long rank : left.join()) {
+                offer(top, rank, limit);
+            }
+            return top;
+        }
+
+        private PriorityQueue<Long> computeRange() {
+            int start = (int) from;
+            int[] scores = new int[(int) (to - from)];
+            for (int list = 0; list < lists.length; list++) {
+                int[] ids = lists[list];
+                int weight = weights == null ? 1 : weights[list];
+                int index = Arrays.binarySearch(ids, start);
+                for (int i = index >= 0 ? index : -index - 1; i < ids.length && ids[i] < to; i++) {
+                    scores[ids[i] - start] += weight;
+                }
+            }
+            PriorityQueue<Long> top = new PriorityQueue<>();
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] > 0 && !excluded.test(start + i)) {
+                    offer(top, rank(start + i, scores[i]), limit);
+                }
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmGenreStorage;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Aspect
+@Component
+public class MetricsAspect {
+    public final static String STORAGE_TIMER = "filmorate.storage";
+    public final static String SERVICE_TIMER = "filmorate.service";
+    private final static List<Class<?>> STORAGES = List.of(FilmStorage.class, UserStorage.class,
+            FilmLikeStorage.class, FriendshipStorage.class, FilmGenreStorage.class);
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodTimers> storageTimers = new ConcurrentHashMap<>();
+    private final Map<Method, MethodTimers> serviceTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.FilmStorage+.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.storage.UserStorage+.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.storage.FilmLikeStorage+.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.storage.FriendshipStorage+.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.storage.FilmGenreStorage+.*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodTimers timers = storageTimers.computeIfAbsent(method(joinPoint), method ->
+                new MethodTimers(STORAGE_TIMER, Tags.of(
+                        "backend", backend(method.getDeclaringClass()),
+                        "storage", storage(method.getDeclaringClass()),
+                        "query", method.getName())));
+        return time(joinPoint, timers);
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service.*Service.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodTimers timers = serviceTimers.computeIfAbsent(method(joinPoint), method ->
+                new MethodTimers(SERVICE_TIMER, Tags.of(
+                        "service", method.getDeclaringClass().getSimpleName(),
+                        "method", method.getName())));
+        return time(joinPoint, timers);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, MethodTimers timers) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer timer = timers.success;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            timer = timers.failures.computeIfAbsent(e.getClass(), exceptionClass ->
+                    timers.register(exceptionClass.getSimpleName()));
+            throw e;
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    private static Method method(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(joinPoint.getTarget()));
+    }
+
+    private static String backend(Class<?> storageClass) {
+        String packageName = storageClass.getPackageName();
+        return packageName.substring(packageName.lastIndexOf('.') + 1);
+    }
+
+    private static String storage(Class<?> storageClass) {
+        return STORAGES.stream()
+                .filter(storage -> storage.isAssignableFrom(storageClass))
+                .map(Class::getSimpleName)
+                .findFirst()
+                .orElse(storageClass.getSimpleName());
+    }
+
+    private class MethodTimers {
+        private final String name;
+        private final Tags tags;
+        private final Timer success;
+        private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+        private MethodTimers(String name, Tags tags) {
+            this.name = name;
+            this.tags = tags;
+            this.success = register("none");
+        }
+
+        private Timer register(String exception) {
+            return Timer.builder(name)
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
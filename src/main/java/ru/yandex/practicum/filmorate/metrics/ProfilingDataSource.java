@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class ProfilingDataSource extends DelegatingDataSource {
+    private final static Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private final Supplier<QueryStatistics> queryStatistics;
+
+    public ProfilingDataSource(DataSource targetDataSource, Supplier<QueryStatistics> queryStatistics) {
+        super(targetDataSource);
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(super.getConnection(username, password));
+    }
+
+    private Connection proxyConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(proxy, connection, method, args);
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class,
+                             new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class,
+                             new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, new StatementHandler((Statement) result, null));
+            }
+            return result;
+        });
+    }
+
+    private void record(String sql, long nanos, long rows, List<Object> parameters) {
+        queryStatistics.get().record(sql, nanos, rows, parameters, getTargetDataSource());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method,
+                                 Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final List<Object> parameters = new ArrayList<>();
+        private String pendingSql;
+        private long pendingStartNanos;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(proxy, method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                setParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("getResultSet") && pendingSql != null) {
+                ResultSet resultSet = (ResultSet) ProfilingDataSource.invoke(proxy, statement, method, args);
+                return resultSet == null ? null : proxyResultSet(resultSet);
+            }
+            return ProfilingDataSource.invoke(proxy, statement, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String
+                                 ? (String) args[0] : sql;
+            long start = System.nanoTime();
+            Object result = ProfilingDataSource.invoke(proxy, statement, method, args);
+            long nanos = System.nanoTime() - start;
+            if (result instanceof ResultSet) {
+                pendingSql = executedSql;
+                pendingStartNanos = start;
+                return proxyResultSet((ResultSet) result);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                pendingSql = executedSql;
+                pendingStartNanos = start;
+            } else if (result instanceof Boolean) {
+                record(executedSql, nanos, Math.max(statement.getUpdateCount(), 0), parameters);
+            } else if (result instanceof Number) {
+                record(executedSql, nanos, ((Number) result).longValue(), parameters);
+            } else if (result instanceof int[]) {
+                record(executedSql, nanos, Arrays.stream((int[]) result).filter(count -> count > 0).sum(),
+                       parameters);
+            } else if (result instanceof long[]) {
+                record(executedSql, nanos, Arrays.stream((long[]) result).filter(count -> count > 0).sum(),
+                       parameters);
+            }
+            return result;
+        }
+
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        private ResultSet proxyResultSet(ResultSet resultSet) {
+            String executedSql = pendingSql;
+            long start = pendingStartNanos;
+            List<Object> executedParameters = new ArrayList<>(parameters);
+            pendingSql = null;
+            long[] rows = new long[1];
+            boolean[] closed = new boolean[1];
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = ProfilingDataSource.invoke(proxy, resultSet, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    rows[0]++;
+                } else if (method.getName().equals("close") && !closed[0]) {
+                    closed[0] = true;
+                    record(executedSql, System.nanoTime() - start, rows[0], executedParameters);
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+@Component
+public class ProfilingDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<QueryStatistics> queryStatistics;
+    private final boolean enabled;
+
+    public ProfilingDataSourcePostProcessor(ObjectProvider<QueryStatistics> queryStatistics,
+                                            @Value("${filmorate.jdbc.profiling.enabled:true}") boolean enabled) {
+        this.queryStatistics = queryStatistics;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource && !(bean instanceof ProfilingDataSource)) {
+            return new ProfilingDataSource((DataSource) bean, queryStatistics::getObject);
+        }
+        return bean;
+    }
+}
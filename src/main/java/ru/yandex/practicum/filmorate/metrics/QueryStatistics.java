@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class QueryStatistics {
+    private final static int MAX_STATEMENTS = 1000;
+    private final static int MAX_SLOW_QUERIES = 1000;
+    private final static int EXPLAIN_QUEUE_CAPACITY = 16;
+    private final static double NANOS_PER_MS = 1_000_000.0;
+    private final static Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    private final static String VALUE = "(?:\\?|-?\\d+(?:\\.\\d+)?|'(?:[^']|'')*')";
+    private final static String VALUE_LIST = "\\(\\s*" + VALUE + "(?:\\s*,\\s*" + VALUE + ")*\\s*\\)";
+    private final static Pattern VALUE_LISTS = Pattern.compile(VALUE_LIST + "(?:\\s*,\\s*" + VALUE_LIST + ")*");
+    private final static String COLLAPSED_VALUE_LIST = "(?…)";
+    private final long slowQueryThresholdNanos;
+    private final long slowQueryWindowMs;
+    private final boolean explainEnabled;
+    private final long explainIntervalMs;
+    private final Map<String, StatementStatistics> statements = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger slowQueriesCount = new AtomicInteger();
+    private final LongAdder droppedStatements = new LongAdder();
+    private final Map<String, Long> explainedAt = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+
+    @Autowired
+    public QueryStatistics(@Value("${filmorate.jdbc.slow-query-threshold-ms:200}") long slowQueryThresholdMs,
+                           @Value("${filmorate.jdbc.slow-query-window-ms:900000}") long slowQueryWindowMs,
+                           @Value("${filmorate.jdbc.explain.enabled:true}") boolean explainEnabled,
+                           @Value("${filmorate.jdbc.explain.interval-ms:60000}") long explainIntervalMs) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+        this.slowQueryWindowMs = slowQueryWindowMs;
+        this.explainEnabled = explainEnabled;
+        this.explainIntervalMs = explainIntervalMs;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("query-explain-");
+        threadFactory.setDaemon(true);
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), threadFactory,
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    public void record(String sql, long nanos, long rows, List<Object> parameters, DataSource dataSource) {
+        if (sql == null) {
+            return;
+        }
+        String normalizedSql = normalize(sql);
+        StatementStatistics statistics = statements.get(normalizedSql);
+        if (statistics == null && statements.size() < MAX_STATEMENTS) {
+            statistics = statements.computeIfAbsent(normalizedSql, StatementStatistics::new);
+        }
+        if (statistics != null) {
+            statistics.record(nanos, rows);
+        } else {
+            droppedStatements.increment();
+        }
+        if (nanos >= slowQueryThresholdNanos) {
+            recordSlowQuery(new SlowQuery(sql, new ArrayList<>(parameters), nanos / NANOS_PER_MS, rows,
+                                          Instant.now()), dataSource);
+        }
+    }
+
+    public List<SlowQuery> getSlowQueries(int limit) {
+        Instant windowStart = Instant.now().minusMillis(slowQueryWindowMs);
+        return slowQueries.stream()
+                .filter(slowQuery -> slowQuery.getExecutedAt().isAfter(windowStart))
+                .sorted(Comparator.comparingDouble(SlowQuery::getDurationMs).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public List<StatementStatistics> getStatements(int limit) {
+        return statements.values().stream()
+                .sorted(Comparator.comparingDouble(StatementStatistics::getTotalMs).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public long getDroppedStatements() {
+        return droppedStatements.sum();
+    }
+
+    private static String normalize(String sql) {
+        if (sql.indexOf(',') < 0) {
+            return sql;
+        }
+        Matcher matcher = VALUE_LISTS.matcher(sql);
+        StringBuilder normalized = new StringBuilder(sql.length());
+        while (matcher.find()) {
+            String values = matcher.group();
+            matcher.appendReplacement(normalized, values.indexOf(',') < 0
+                                                  ? Matcher.quoteReplacement(values)
+                                                  : COLLAPSED_VALUE_LIST);
+        }
+        matcher.appendTail(normalized);
+        return normalized.toString();
+    }
+
+    private void recordSlowQuery(SlowQuery slowQuery, DataSource dataSource) {
+        slowQueries.addFirst(slowQuery);
+        if (slowQueriesCount.incrementAndGet() > MAX_SLOW_QUERIES && slowQueries.pollLast() != null) {
+            slowQueriesCount.decrementAndGet();
+        }
+        log.warn("QueryStatistics.record: slow query took {} ms and returned {} rows: {}",
+                 String.format("%.1f", slowQuery.getDurationMs()), slowQuery.getRowsReturned(),
+                 slowQuery.getSql());
+        if (explainEnabled && dataSource != null && isSelect(slowQuery.getSql())
+                && isExplainDue(slowQuery.getSql())) {
+            explainExecutor.execute(() -> explain(slowQuery, dataSource));
+        }
+    }
+
+    private boolean isExplainDue(String sql) {
+        long now = System.currentTimeMillis();
+        String key = normalize(sql);
+        Long last = explainedAt.get(key);
+        if (last != null && now - last < explainIntervalMs) {
+            return false;
+        }
+        if (last == null && explainedAt.size() >= MAX_STATEMENTS) {
+            return false;
+        }
+        return last == null ? explainedAt.putIfAbsent(key, now) == null : explainedAt.replace(key, last, now);
+    }
+
+    private void explain(SlowQuery slowQuery, DataSource dataSource) {
+        String sql = "EXPLAIN ANALYZE " + slowQuery.getSql();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            List<Object> parameters = slowQuery.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            long rowsRead = 0;
+            Matcher matcher = SCAN_COUNT.matcher(plan);
+            while (matcher.find()) {
+                rowsRead += Long.parseLong(matcher.group(1));
+            }
+            slowQuery.setRowsRead(rowsRead);
+            slowQuery.setPlan(plan.toString());
+            log.warn("QueryStatistics.explain: slow query read {} rows, plan:\n{}", rowsRead, plan);
+        } catch (SQLException e) {
+            log.warn("QueryStatistics.explain: could not explain slow query: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        String statement = sql.stripLeading();
+        return statement.regionMatches(true, 0, "SELECT", 0, 6)
+               || statement.regionMatches(true, 0, "WITH", 0, 4);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+    private final QueryStatistics queryStatistics;
+    private final int top;
+
+    @Autowired
+    public SlowQueriesEndpoint(QueryStatistics queryStatistics,
+                               @Value("${filmorate.jdbc.slow-query-top:20}") int top) {
+        this.queryStatistics = queryStatistics;
+        this.top = top;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        return Map.of("slowQueries", queryStatistics.getSlowQueries(top),
+                      "statements", queryStatistics.getStatements(top),
+                      "droppedStatements", queryStatistics.getDroppedStatements());
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+public class SlowQuery {
+    private final String sql;
+    @JsonIgnore
+    private final List<Object> parameters;
+    private final double durationMs;
+    private final long rowsReturned;
+    private final Instant executedAt;
+    @Setter
+    private volatile Long rowsRead;
+    @Setter
+    private volatile String plan;
+
+    public SlowQuery(String sql, List<Object> parameters, double durationMs, long rowsReturned,
+                     Instant executedAt) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.durationMs = durationMs;
+        this.rowsReturned = rowsReturned;
+        this.executedAt = executedAt;
+    }
+}
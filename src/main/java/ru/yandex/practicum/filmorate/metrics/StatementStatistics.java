@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StatementStatistics {
+    private final static double NANOS_PER_MS = 1_000_000.0;
+    private final String sql;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rows = new LongAdder();
+
+    public StatementStatistics(String sql) {
+        this.sql = sql;
+    }
+
+    public void record(long nanos, long rowCount) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        rows.add(rowCount);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalMs() {
+        return totalNanos.sum() / NANOS_PER_MS;
+    }
+
+    public double getMeanMs() {
+        long executions = count.sum();
+        return executions == 0 ? 0 : totalNanos.sum() / NANOS_PER_MS / executions;
+    }
+
+    public double getMaxMs() {
+        return maxNanos.get() / NANOS_PER_MS;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BulkImportError {
+    private final long line;
+    private final List<String> messages;
+
+    public BulkImportError(long line, List<String> messages) {
+        this.line = line;
+        this.messages = messages;
+    }
+}
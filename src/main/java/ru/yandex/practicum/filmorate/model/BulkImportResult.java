@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.ArrayList;
+
+@Getter
+public class BulkImportResult {
+    private int imported;
+    private int failed;
+    private final List<BulkImportError> errors = new ArrayList<>();
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addError(long line, List<String> messages) {
+        failed++;
+        errors.add(new BulkImportError(line, messages));
+    }
+}
@@ -1,13 +1,14 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import ru.yandex.practicum.filmorate.constraints.MinDate;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import javax.validation.constraints.*;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.Objects;
+import java.util.Collection;
 
 @Getter
 @Setter
@@ -28,18 +29,32 @@ public class Film {
     private int duration;
     @NotNull
     private Mpa mpa;
-    private final Set<Integer> likes;
-    private final Set<Integer> genres;
+    private final IntSet likes;
+    private final IntSet genres;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long version;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Instant updatedAt;
 
     public Film(int id, String name, String description, LocalDate releaseDate, int duration,
-                Mpa mpa, HashSet<Integer> likes, HashSet<Integer> genres) {
+                Mpa mpa, Collection<Integer> likes, Collection<Integer> genres) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.releaseDate = releaseDate;
         this.duration = duration;
         this.mpa = mpa;
-        this.likes = Objects.requireNonNullElseGet(likes, HashSet::new);
-        this.genres = Objects.requireNonNullElseGet(genres, HashSet::new);
+        this.likes = likes == null ? new IntSet() : new IntSet(likes);
+        this.genres = genres == null ? new IntSet() : new IntSet(genres);
+    }
+
+    public Film(Film other) {
+        this(other.id, other.name, other.description, other.releaseDate, other.duration,
+             other.mpa == null ? null : new Mpa(other.mpa.getId(), other.mpa.getName()),
+             other.likes, other.genres);
+        this.version = other.version;
+        this.updatedAt = other.updatedAt;
     }
 }
@@ -1,10 +1,11 @@
 package ru.yandex.practicum.filmorate.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class FilmIdGenerator {
-    private static int filmId = 0;
+    private static final AtomicInteger filmId = new AtomicInteger();
 
     public static int getFilmId() {
-        filmId++;
-        return filmId;
+        return filmId.incrementAndGet();
     }
 }
@@ -1,11 +1,12 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import javax.validation.constraints.*;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Set;
-import java.util.HashSet;
 
 @Getter
 @Setter
@@ -26,7 +27,13 @@ public class User {
     @NotNull
     @Past
     private LocalDate birthday;
-    private final Set<Integer> friends;
+    private final IntSet friends;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long version;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Instant updatedAt;
 
     public User(int id, String email, String login, String name, LocalDate birthday) {
         this.id = id;
@@ -34,6 +41,13 @@ public class User {
         this.login = login;
         this.name = name;
         this.birthday = birthday;
-        friends = new HashSet<>();
+        friends = new IntSet();
+    }
+
+    public User(User other) {
+        this(other.id, other.email, other.login, other.name, other.birthday);
+        this.friends.addAll(other.friends);
+        this.version = other.version;
+        this.updatedAt = other.updatedAt;
     }
 }
@@ -1,10 +1,11 @@
 package ru.yandex.practicum.filmorate.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class UserIdGenerator {
-    private static int userId = 0;
+    private static final AtomicInteger userId = new AtomicInteger();
 
     public static int getUserId() {
-        userId++;
-        return userId;
+        return userId.incrementAndGet();
     }
 }
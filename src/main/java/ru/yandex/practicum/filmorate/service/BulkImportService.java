@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BulkImportService {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    @Autowired
+    public BulkImportService(FilmService filmService, UserService userService,
+                             ObjectMapper objectMapper, Validator validator,
+                             @Value("${filmorate.import.chunk-size:1000}") int chunkSize) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkImportResult importFilms(InputStream inputStream) throws IOException {
+        return importRecords(inputStream, Film.class,
+                             filmService::createFilms, filmService::createFilm);
+    }
+
+    public BulkImportResult importUsers(InputStream inputStream) throws IOException {
+        return importRecords(inputStream, User.class,
+                             userService::createUsers, userService::createUser);
+    }
+
+    private <T> BulkImportResult importRecords(InputStream inputStream, Class<T> type,
+                                               Function<List<T>, List<T>> chunkWriter,
+                                               UnaryOperator<T> recordWriter) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                T record;
+                try {
+                    record = objectMapper.readValue(line, type);
+                } catch (JsonProcessingException e) {
+                    result.addError(lineNumber, List.of("Invalid JSON: " + e.getOriginalMessage()));
+                    continue;
+                }
+                List<String> violations = validate(record);
+                if (!violations.isEmpty()) {
+                    result.addError(lineNumber, violations);
+                    continue;
+                }
+                chunk.add(record);
+                chunkLines.add(lineNumber);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, chunkLines, chunkWriter, recordWriter, result);
+                }
+            }
+        }
+        writeChunk(chunk, chunkLines, chunkWriter, recordWriter, result);
+        log.info("BulkImportService.importRecords: {} {} records imported, {} failed",
+                 result.getImported(), type.getSimpleName(), result.getFailed());
+        return result;
+    }
+
+    private <T> void writeChunk(List<T> chunk, List<Long> chunkLines,
+                                Function<List<T>, List<T>> chunkWriter,
+                                UnaryOperator<T> recordWriter, BulkImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            result.addImported(chunkWriter.apply(chunk).size());
+        } catch (RuntimeException e) {
+            log.warn("BulkImportService.writeChunk: chunk of {} records starting at line {} " +
+                     "failed, retrying record by record: {}",
+                     chunk.size(), chunkLines.get(0), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    recordWriter.apply(chunk.get(i));
+                    result.addImported(1);
+                } catch (RuntimeException recordException) {
+                    String message = NestedExceptionUtils.getMostSpecificCause(recordException)
+                            .getMessage();
+                    result.addError(chunkLines.get(i), List.of(message));
+                }
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private <T> List<String> validate(T record) {
+        return validator.validate(record).stream()
+                .map(this::formatViolation)
+                .collect(Collectors.toList());
+    }
+
+    private String formatViolation(ConstraintViolation<?> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+}
@@ -3,12 +3,30 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.FacetIndex;
+import ru.yandex.practicum.filmorate.index.SearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmRecommender;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.util.LockStripes;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Slf4j
 @Service
@@ -16,24 +34,72 @@ public class FilmService {
     private final FilmStorage filmStorage;
     private final FilmLikeStorage filmLikeStorage;
     private final UserService userService;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final LikeIndex likeIndex;
+    private final FilmRecommender filmRecommender;
+    private final FacetIndex facetIndex;
+    private final SearchIndex searchIndex;
+    private final LikeWriteBehindQueue likeWriteBehindQueue;
+    private final ResourceVersion filmsVersion;
+    private final LockStripes likeLocks = new LockStripes(LOCK_STRIPES);
     private final static String EMPTY_ID_MESSAGE = "An empty film id was passed";
+    private final static String INVALID_PAGE_SIZE_MESSAGE = "Page size must be between 1 and %d";
+    private final static String INVALID_LIMIT_MESSAGE = "Limit must be between 1 and %d";
+    private final static String UNKNOWN_SEARCH_FIELD_MESSAGE = "Unknown search field %s";
+    private final static String UNKNOWN_SEARCH_SORT_MESSAGE = "Unknown search sort %s";
+    private final static int DEFAULT_PAGE_SIZE = 100;
+    private final static int MAX_PAGE_SIZE = 1000;
+    private final static int LOCK_STRIPES = 64;
     private final static String NEEDLESS_ID_MESSAGE = "An id was passed " +
                                                       "(film id is assigned automatically)";
 
     @Autowired
     public FilmService(FilmStorage filmStorage, FilmLikeStorage filmLikeStorage,
-                       UserService userService) {
+                       UserService userService, PopularityLeaderboard popularityLeaderboard,
+                       LikeIndex likeIndex, FilmRecommender filmRecommender,
+                       FacetIndex facetIndex, SearchIndex searchIndex,
+                       LikeWriteBehindQueue likeWriteBehindQueue,
+                       @Qualifier("filmsVersion") ResourceVersion filmsVersion) {
         this.filmStorage = filmStorage;
         this.filmLikeStorage = filmLikeStorage;
         this.userService = userService;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.likeIndex = likeIndex;
+        this.filmRecommender = filmRecommender;
+        this.facetIndex = facetIndex;
+        this.searchIndex = searchIndex;
+        this.likeWriteBehindQueue = likeWriteBehindQueue;
+        this.filmsVersion = filmsVersion;
+    }
+
+    public ResourceVersion getFilmsVersion() {
+        return filmsVersion;
     }
 
     public List<Film> getFilmsList() {
         return filmStorage.getFilms();
     }
 
-    public List<Film> getPopularFilms(int count) {
-        return filmStorage.getPopularFilms(count);
+    public List<Film> getFilmsPage(Integer afterId, Integer limit) {
+        int pageSize = Objects.requireNonNullElse(limit, DEFAULT_PAGE_SIZE);
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            String message = String.format(INVALID_PAGE_SIZE_MESSAGE, MAX_PAGE_SIZE);
+            log.warn("ValidationException at FilmService.getFilmsPage: {}", message);
+            throw new ValidationException(message);
+        }
+        return filmStorage.getFilmsPage(Objects.requireNonNullElse(afterId, 0), pageSize);
+    }
+
+    public void streamFilms(Consumer<Film> consumer) {
+        filmStorage.streamFilms(consumer);
+    }
+
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year, Integer mpaId) {
+        BitSet candidates = facetIndex.getFilms(genreId, year, mpaId);
+        if (candidates == null) {
+            return filmStorage.getFilmsByIds(popularityLeaderboard.getTop(count));
+        }
+        return filmStorage.getFilmsByIds(popularityLeaderboard.getTop(count, candidates));
     }
 
     public Film getFilmById(int id) {
@@ -45,7 +111,32 @@ public class FilmService {
             log.warn("ValidationException at FilmService.createFilm: {}", NEEDLESS_ID_MESSAGE);
             throw new ValidationException(NEEDLESS_ID_MESSAGE);
         }
-        return filmStorage.addFilm(film);
+        Film addedFilm = filmStorage.addFilm(film);
+        popularityLeaderboard.addFilm(addedFilm.getId(), addedFilm.getLikes().size());
+        likeIndex.addFilm(addedFilm.getId(), addedFilm.getLikes());
+        facetIndex.addFilm(addedFilm);
+        searchIndex.addFilm(addedFilm);
+        filmsVersion.increment();
+        return addedFilm;
+    }
+
+    public List<Film> createFilms(List<Film> films) {
+        for (Film film : films) {
+            if (film.getId() != 0) {
+                log.warn("ValidationException at FilmService.createFilms: {}",
+                         NEEDLESS_ID_MESSAGE);
+                throw new ValidationException(NEEDLESS_ID_MESSAGE);
+            }
+        }
+        List<Film> addedFilms = filmStorage.addFilms(films);
+        for (Film film : addedFilms) {
+            popularityLeaderboard.addFilm(film.getId(), film.getLikes().size());
+            likeIndex.addFilm(film.getId(), film.getLikes());
+            facetIndex.addFilm(film);
+            searchIndex.addFilm(film);
+        }
+        filmsVersion.increment();
+        return addedFilms;
     }
 
     public Film updateFilm(Film newFilm) {
@@ -53,19 +144,113 @@ public class FilmService {
             log.warn("ValidationException at FilmService.updateFilm: {}", EMPTY_ID_MESSAGE);
             throw new ValidationException(EMPTY_ID_MESSAGE);
         }
-        getFilmById(newFilm.getId());
-        return filmStorage.updateFilm(newFilm);
+        checkFilmExists(newFilm.getId());
+        Film updatedFilm = filmStorage.updateFilm(newFilm);
+        facetIndex.addFilm(updatedFilm);
+        searchIndex.addFilm(updatedFilm);
+        filmsVersion.increment();
+        return updatedFilm;
+    }
+
+    public List<Film> searchFilms(String query, String by, String sort, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            String message = String.format(INVALID_LIMIT_MESSAGE, MAX_PAGE_SIZE);
+            log.warn("ValidationException at FilmService.searchFilms: {}", message);
+            throw new ValidationException(message);
+        }
+        Set<SearchIndex.Field> fields = EnumSet.noneOf(SearchIndex.Field.class);
+        for (String field : by.split(",")) {
+            switch (field.trim().toLowerCase(Locale.ROOT)) {
+                case "title":
+                    fields.add(SearchIndex.Field.TITLE);
+                    break;
+                case "description":
+                    fields.add(SearchIndex.Field.DESCRIPTION);
+                    break;
+                default:
+                    String message = String.format(UNKNOWN_SEARCH_FIELD_MESSAGE, field);
+                    log.warn("ValidationException at FilmService.searchFilms: {}", message);
+                    throw new ValidationException(message);
+            }
+        }
+        BitSet films = searchIndex.search(query, fields);
+        switch (sort) {
+            case "likes":
+                return filmStorage.getFilmsByIds(popularityLeaderboard.getTop(limit, films));
+            case "id":
+                return filmStorage.getFilmsByIds(films.stream()
+                        .limit(limit)
+                        .boxed()
+                        .collect(Collectors.toList()));
+            default:
+                String message = String.format(UNKNOWN_SEARCH_SORT_MESSAGE, sort);
+                log.warn("ValidationException at FilmService.searchFilms: {}", message);
+                throw new ValidationException(message);
+        }
     }
 
     public void addLike(int id, int userId) {
-        getFilmById(id);
-        userService.getUserById(userId);
-        filmLikeStorage.addLike(id, userId);
+        checkFilmExists(id);
+        userService.checkUserExists(userId);
+        if (likeWriteBehindQueue.isEnabled()) {
+            if (likeWriteBehindQueue.addLike(id, userId)) {
+                filmsVersion.increment();
+            }
+        } else {
+            Lock lock = likeLocks.lockFor(id, userId);
+            lock.lock();
+            try {
+                if (filmLikeStorage.addLike(id, userId)) {
+                    popularityLeaderboard.incrementLikes(id);
+                    likeIndex.addLike(id, userId);
+                    filmsVersion.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     public void deleteLike(int id, int userId) {
-        getFilmById(id);
-        userService.getUserById(userId);
-        filmLikeStorage.deleteLike(id, userId);
+        checkFilmExists(id);
+        userService.checkUserExists(userId);
+        if (likeWriteBehindQueue.isEnabled()) {
+            if (likeWriteBehindQueue.deleteLike(id, userId)) {
+                filmsVersion.increment();
+            }
+        } else {
+            Lock lock = likeLocks.lockFor(id, userId);
+            lock.lock();
+            try {
+                if (filmLikeStorage.deleteLike(id, userId)) {
+                    popularityLeaderboard.decrementLikes(id);
+                    likeIndex.deleteLike(id, userId);
+                    filmsVersion.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public List<Film> getFilmRecommendations(int userId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            String message = String.format(INVALID_LIMIT_MESSAGE, MAX_PAGE_SIZE);
+            log.warn("ValidationException at FilmService.getFilmRecommendations: {}", message);
+            throw new ValidationException(message);
+        }
+        userService.checkUserExists(userId);
+        List<Integer> ids = Arrays.stream(filmRecommender.recommend(userId, limit))
+                .boxed()
+                .collect(Collectors.toList());
+        return filmStorage.getFilmsByIds(ids);
+    }
+
+    private void checkFilmExists(int id) {
+        if (!filmStorage.existsById(id)) {
+            log.debug("FilmNotFoundException at FilmService.checkFilmExists: " +
+                      "there is no film with id {}", id);
+            throw new FilmNotFoundException(id);
+        }
     }
 }
@@ -0,0 +1,260 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.LockStripes;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+@Slf4j
+@Component
+public class LikeWriteBehindQueue {
+    private final static int LOCK_STRIPES = 64;
+    private final static long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private final FilmLikeStorage filmLikeStorage;
+    private final LikeIndex likeIndex;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final ResourceVersion filmsVersion;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<LikeOperation> queue;
+    private final LockStripes locks = new LockStripes(LOCK_STRIPES);
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public LikeWriteBehindQueue(FilmLikeStorage filmLikeStorage, LikeIndex likeIndex,
+                                PopularityLeaderboard popularityLeaderboard,
+                                @Qualifier("filmsVersion") ResourceVersion filmsVersion,
+                                @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                @Value("${filmorate.likes.write-behind.flush-interval-ms:50}")
+                                long flushIntervalMs) {
+        this.filmLikeStorage = filmLikeStorage;
+        this.likeIndex = likeIndex;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.filmsVersion = filmsVersion;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "like-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("LikeWriteBehindQueue.start: write-behind for likes enabled " +
+                 "(capacity {}, batch size {})", queue.remainingCapacity(), batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(SHUTDOWN_TIMEOUT_MS);
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean addLike(int filmId, int userId) {
+        Lock lock = lockFor(filmId, userId);
+        lock.lock();
+        try {
+            if (!likeIndex.addLike(filmId, userId)) {
+                return false;
+            }
+            enqueue(new LikeOperation(filmId, userId, true));
+            popularityLeaderboard.incrementLikes(filmId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean deleteLike(int filmId, int userId) {
+        Lock lock = lockFor(filmId, userId);
+        lock.lock();
+        try {
+            if (!likeIndex.deleteLike(filmId, userId)) {
+                return false;
+            }
+            enqueue(new LikeOperation(filmId, userId, false));
+            popularityLeaderboard.decrementLikes(filmId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public void flush() {
+        List<LikeOperation> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void enqueue(LikeOperation operation) {
+        try {
+            queue.put(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (operation.add) {
+                likeIndex.deleteLike(operation.filmId, operation.userId);
+            } else {
+                likeIndex.addLike(operation.filmId, operation.userId);
+            }
+            throw new IllegalStateException("Interrupted while waiting for the like queue", e);
+        }
+    }
+
+    private void run() {
+        List<LikeOperation> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LikeOperation operation = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (operation == null) {
+                    continue;
+                }
+                batch.add(operation);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("LikeWriteBehindQueue.run: failed to write {} likes", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<LikeOperation> batch) {
+        Map<Long, LikeOperation> coalesced = new LinkedHashMap<>();
+        for (LikeOperation operation : batch) {
+            LikeOperation previous = coalesced.remove(operation.key());
+            if (previous == null || previous.add == operation.add) {
+                coalesced.put(operation.key(), operation);
+            }
+        }
+        Map<Integer, List<Integer>> added = new HashMap<>();
+        Map<Integer, List<Integer>> deleted = new HashMap<>();
+        for (LikeOperation operation : coalesced.values()) {
+            (operation.add ? added : deleted)
+                    .computeIfAbsent(operation.filmId, id -> new ArrayList<>())
+                    .add(operation.userId);
+        }
+        if (!deleted.isEmpty()) {
+            try {
+                filmLikeStorage.deleteLikes(deleted);
+            } catch (RuntimeException e) {
+                log.warn("LikeWriteBehindQueue.write: batch delete of likes failed, " +
+                         "retrying one by one: {}", e.getMessage());
+                deleted.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                        writeOne(new LikeOperation(filmId, userId, false))));
+            }
+        }
+        if (!added.isEmpty()) {
+            try {
+                filmLikeStorage.addLikes(added);
+            } catch (RuntimeException e) {
+                log.warn("LikeWriteBehindQueue.write: batch insert of likes failed, " +
+                         "retrying one by one: {}", e.getMessage());
+                added.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                        writeOne(new LikeOperation(filmId, userId, true))));
+            }
+        }
+        filmsVersion.increment();
+        log.debug("LikeWriteBehindQueue.write: {} like operations coalesced into {}",
+                  batch.size(), coalesced.size());
+    }
+
+    private void writeOne(LikeOperation operation) {
+        try {
+            if (operation.add) {
+                filmLikeStorage.addLike(operation.filmId, operation.userId);
+            } else {
+                filmLikeStorage.deleteLike(operation.filmId, operation.userId);
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("LikeWriteBehindQueue.writeOne: like of film {} by user {} is already stored",
+                      operation.filmId, operation.userId);
+        } catch (RuntimeException e) {
+            log.warn("LikeWriteBehindQueue.writeOne: like of film {} by user {} dropped: {}",
+                     operation.filmId, operation.userId, e.getMessage());
+            undo(operation);
+        }
+    }
+
+    private void undo(LikeOperation operation) {
+        Lock lock = lockFor(operation.filmId, operation.userId);
+        lock.lock();
+        try {
+            if (operation.add) {
+                if (likeIndex.deleteLike(operation.filmId, operation.userId)) {
+                    popularityLeaderboard.decrementLikes(operation.filmId);
+                }
+            } else if (likeIndex.addLike(operation.filmId, operation.userId)) {
+                popularityLeaderboard.incrementLikes(operation.filmId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock lockFor(int filmId, int userId) {
+        return locks.lockFor(filmId, userId);
+    }
+
+    private static final class LikeOperation {
+        private final int filmId;
+        private final int userId;
+        private final boolean add;
+
+        private LikeOperation(int filmId, int userId, boolean add) {
+            this.filmId = filmId;
+            this.userId = userId;
+            this.add = add;
+        }
+
+        private long key() {
+            return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -3,32 +3,75 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.index.FriendIndex;
+import ru.yandex.practicum.filmorate.index.FriendRecommender;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.util.LockStripes;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Slf4j
 @Service
 public class UserService {
     private final UserStorage userStorage;
     private final FriendshipStorage friendshipStorage;
+    private final FriendIndex friendIndex;
+    private final FriendRecommender friendRecommender;
+    private final ResourceVersion usersVersion;
+    private final LockStripes friendshipLocks = new LockStripes(LOCK_STRIPES);
     private final static String EMPTY_ID_MESSAGE = "An empty user id was passed";
+    private final static String INVALID_PAGE_SIZE_MESSAGE = "Page size must be between 1 and %d";
+    private final static String INVALID_LIMIT_MESSAGE = "Limit must be between 1 and %d";
+    private final static int DEFAULT_PAGE_SIZE = 100;
+    private final static int MAX_PAGE_SIZE = 1000;
+    private final static int LOCK_STRIPES = 64;
     private final static String NEEDLESS_ID_MESSAGE = "An id was passed " +
                                                       "(user id is assigned automatically)";
 
     @Autowired
-    public UserService(UserStorage userStorage, FriendshipStorage friendshipStorage) {
+    public UserService(UserStorage userStorage, FriendshipStorage friendshipStorage,
+                       FriendIndex friendIndex, FriendRecommender friendRecommender,
+                       @Qualifier("usersVersion") ResourceVersion usersVersion) {
         this.userStorage = userStorage;
         this.friendshipStorage = friendshipStorage;
+        this.friendIndex = friendIndex;
+        this.friendRecommender = friendRecommender;
+        this.usersVersion = usersVersion;
+    }
+
+    public ResourceVersion getUsersVersion() {
+        return usersVersion;
     }
 
     public List<User> getUsersList() {
         return userStorage.getUsers();
     }
 
+    public List<User> getUsersPage(Integer afterId, Integer limit) {
+        int pageSize = Objects.requireNonNullElse(limit, DEFAULT_PAGE_SIZE);
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            String message = String.format(INVALID_PAGE_SIZE_MESSAGE, MAX_PAGE_SIZE);
+            log.warn("ValidationException at UserService.getUsersPage: {}", message);
+            throw new ValidationException(message);
+        }
+        return userStorage.getUsersPage(Objects.requireNonNullElse(afterId, 0), pageSize);
+    }
+
+    public void streamUsers(Consumer<User> consumer) {
+        userStorage.streamUsers(consumer);
+    }
+
     public User getUserById(int id) {
         return userStorage.getUserById(id);
     }
@@ -41,7 +84,25 @@ public class UserService {
         if (user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        return userStorage.addUser(user);
+        User addedUser = userStorage.addUser(user);
+        usersVersion.increment();
+        return addedUser;
+    }
+
+    public List<User> createUsers(List<User> users) {
+        for (User user : users) {
+            if (user.getId() != 0) {
+                log.warn("ValidationException at UserService.createUsers: {}",
+                         NEEDLESS_ID_MESSAGE);
+                throw new ValidationException(NEEDLESS_ID_MESSAGE);
+            }
+            if (user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+        }
+        List<User> addedUsers = userStorage.addUsers(users);
+        usersVersion.increment();
+        return addedUsers;
     }
 
     public User updateUser(User newUser) {
@@ -49,30 +110,74 @@ public class UserService {
             log.warn("ValidationException at UserService.updateUser: {}", EMPTY_ID_MESSAGE);
             throw new ValidationException(EMPTY_ID_MESSAGE);
         }
-        getUserById(newUser.getId());
-        return userStorage.updateUser(newUser);
+        checkUserExists(newUser.getId());
+        User updatedUser = userStorage.updateUser(newUser);
+        usersVersion.increment();
+        return updatedUser;
     }
 
     public void addFriend(int id, int friendId) {
-        getUserById(id);
-        getUserById(friendId);
-        friendshipStorage.addFriend(id, friendId);
+        checkUsersExist(id, friendId);
+        Lock lock = friendshipLocks.lockFor(id, friendId);
+        lock.lock();
+        try {
+            friendshipStorage.addFriend(id, friendId);
+            friendIndex.addFriend(id, friendId);
+        } finally {
+            lock.unlock();
+        }
+        usersVersion.increment();
     }
 
     public void deleteFriend(int id, int friendId) {
-        getUserById(id);
-        getUserById(friendId);
-        friendshipStorage.deleteFriend(id, friendId);
+        checkUsersExist(id, friendId);
+        Lock lock = friendshipLocks.lockFor(id, friendId);
+        lock.lock();
+        try {
+            friendshipStorage.deleteFriend(id, friendId);
+            friendIndex.deleteFriend(id, friendId);
+        } finally {
+            lock.unlock();
+        }
+        usersVersion.increment();
     }
 
     public List<User> getFriendsListById(int id) {
-        getUserById(id);
-        return userStorage.getFriendsListById(id);
+        checkUserExists(id);
+        return userStorage.getUsersByIds(toList(friendIndex.getFriends(id)));
     }
 
     public List<User> getCommonFriends(int id, int otherId) {
-        getUserById(id);
-        getUserById(otherId);
-        return userStorage.getCommonFriends(id, otherId);
+        checkUsersExist(id, otherId);
+        return userStorage.getUsersByIds(toList(friendIndex.getCommonFriends(id, otherId)));
+    }
+
+    public List<User> getFriendRecommendations(int id, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            String message = String.format(INVALID_LIMIT_MESSAGE, MAX_PAGE_SIZE);
+            log.warn("ValidationException at UserService.getFriendRecommendations: {}", message);
+            throw new ValidationException(message);
+        }
+        checkUserExists(id);
+        return userStorage.getUsersByIds(toList(friendRecommender.recommend(id, limit)));
+    }
+
+    public void checkUserExists(int id) {
+        if (!userStorage.existsById(id)) {
+            log.debug("UserNotFoundException at UserService.checkUserExists: " +
+                      "there is no user with id {}", id);
+            throw new UserNotFoundException(id);
+        }
+    }
+
+    private List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+
+    private void checkUsersExist(int id, int otherId) {
+        if (!userStorage.existsAll(List.of(id, otherId))) {
+            checkUserExists(id);
+            checkUserExists(otherId);
+        }
     }
 }
@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FilmGenreStorage {
     void addGenre(int id, int genreId);
 
     void deleteGenre(int id, int genreId);
 
+    void addGenres(int id, Collection<Integer> genreIds);
+
+    void addGenres(Map<Integer, ? extends Collection<Integer>> genreIdsByFilmId);
+
+    void replaceGenres(int id, Collection<Integer> genreIds);
+
     List<Integer> getGenresByFilmId(int id);
 }
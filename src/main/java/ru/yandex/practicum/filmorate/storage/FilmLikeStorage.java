@@ -1,7 +1,22 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.Collection;
+import java.util.Map;
+
 public interface FilmLikeStorage {
-    void addLike(int id, int userId);
+    boolean addLike(int id, int userId);
+
+    boolean deleteLike(int id, int userId);
+
+    void addLikes(int id, Collection<Integer> userIds);
+
+    void addLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId);
+
+    void deleteLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId);
+
+    Map<Integer, Integer> getLikesCount();
 
-    void deleteLike(int id, int userId);
+    Map<Integer, IntSet> getLikes();
 }
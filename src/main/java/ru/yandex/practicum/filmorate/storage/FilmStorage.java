@@ -2,17 +2,32 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     List<Film> getFilms();
 
-    List<Film> getPopularFilms(int count);
+    List<Film> getFilmsPage(int afterId, int limit);
+
+    void streamFilms(Consumer<Film> consumer);
+
+    List<Film> getFilmsByIds(List<Integer> ids);
 
     Film getFilmById(int id);
 
+    Optional<Film> findFilmById(int id);
+
+    boolean existsById(int id);
+
+    boolean existsAll(Collection<Integer> ids);
+
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film newFilm);
 
     void deleteFilmById(int id);
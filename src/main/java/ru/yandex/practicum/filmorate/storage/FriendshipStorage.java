@@ -1,7 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.Map;
+
 public interface FriendshipStorage {
     void addFriend(int id, int friendId);
 
     void deleteFriend(int id, int friendId);
+
+    Map<Integer, IntSet> getFriendIds();
 }
@@ -2,19 +2,32 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     List<User> getUsers();
 
-    List<User> getFriendsListById(int id);
+    List<User> getUsersPage(int afterId, int limit);
 
-    List<User> getCommonFriends(int id, int otherId);
+    void streamUsers(Consumer<User> consumer);
+
+    List<User> getUsersByIds(List<Integer> ids);
 
     User getUserById(int id);
 
+    Optional<User> findUserById(int id);
+
+    boolean existsById(int id);
+
+    boolean existsAll(Collection<Integer> ids);
+
     User addUser(User user);
 
+    List<User> addUsers(List<User> users);
+
     User updateUser(User newUser);
 
     void deleteUserById(int id);
@@ -4,17 +4,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.storage.FilmGenreStorage;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @Primary
 public class DatabaseFIlmGenreStorage implements FilmGenreStorage {
+    private final static RateLimitedLogger HOT_PATH_LOG = new RateLimitedLogger(log);
     private final JdbcTemplate jdbcTemplate;
     private final static String ADD_GENRE_QUERY =
             "INSERT INTO film_genre (film_id, genre_id) " +
@@ -22,6 +29,14 @@ public class DatabaseFIlmGenreStorage implements FilmGenreStorage {
     private final static String DELETE_GENRE_QUERY =
             "DELETE FROM film_genre " +
             "WHERE film_id = ? AND genre_id = ?;";
+    private final static String DELETE_GENRES_QUERY =
+            "DELETE FROM film_genre " +
+            "WHERE film_id = ?;";
+    private final static String TOUCH_FILM_QUERY =
+            "UPDATE film " +
+            "SET version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?;";
     private final static String GET_GENRES_BY_FILM_ID_QUERY =
             "SELECT genre_id FROM film_genre " +
             "WHERE film_id = ?;";
@@ -32,24 +47,82 @@ public class DatabaseFIlmGenreStorage implements FilmGenreStorage {
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
     public void addGenre(int id, int genreId) {
         jdbcTemplate.update(ADD_GENRE_QUERY, id, genreId);
-        log.info("DatabaseFilmGenreStorage.addGenre: genre {} for film {} " +
+        jdbcTemplate.update(TOUCH_FILM_QUERY, id);
+        HOT_PATH_LOG.info("DatabaseFilmGenreStorage.addGenre: genre {} for film {} " +
                  "successfully added", genreId, id);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
     public void deleteGenre(int id, int genreId) {
-        jdbcTemplate.update(DELETE_GENRE_QUERY, id, genreId);
-        log.info("DatabaseFilmGenreStorage.deleteGenre: genre {} for film {} " +
+        if (jdbcTemplate.update(DELETE_GENRE_QUERY, id, genreId) > 0) {
+            jdbcTemplate.update(TOUCH_FILM_QUERY, id);
+        }
+        HOT_PATH_LOG.info("DatabaseFilmGenreStorage.deleteGenre: genre {} for film {} " +
                  "successfully deleted", genreId, id);
     }
 
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
+    public void addGenres(int id, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_GENRE_QUERY, toBatchArgs(id, genreIds));
+        jdbcTemplate.update(TOUCH_FILM_QUERY, id);
+        log.info("DatabaseFilmGenreStorage.addGenres: genres {} for film {} " +
+                 "successfully added", genreIds, id);
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", allEntries = true)
+    public void addGenres(Map<Integer, ? extends Collection<Integer>> genreIdsByFilmId) {
+        List<Object[]> batchArgs = genreIdsByFilmId.entrySet().stream()
+                .flatMap(entry -> toBatchArgs(entry.getKey(), entry.getValue()).stream())
+                .collect(Collectors.toList());
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_GENRE_QUERY, batchArgs);
+        jdbcTemplate.batchUpdate(TOUCH_FILM_QUERY, genreIdsByFilmId.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> new Object[]{entry.getKey()})
+                .collect(Collectors.toList()));
+        log.info("DatabaseFilmGenreStorage.addGenres: {} genres for {} films " +
+                 "successfully added", batchArgs.size(), genreIdsByFilmId.size());
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
+    public void replaceGenres(int id, Collection<Integer> genreIds) {
+        jdbcTemplate.update(DELETE_GENRES_QUERY, id);
+        if (!genreIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_GENRE_QUERY, toBatchArgs(id, genreIds));
+        }
+        jdbcTemplate.update(TOUCH_FILM_QUERY, id);
+        log.info("DatabaseFilmGenreStorage.replaceGenres: genres for film {} " +
+                 "successfully replaced with {}", id, genreIds);
+    }
+
     @Override
     public List<Integer> getGenresByFilmId(int id) {
         return jdbcTemplate.query(GET_GENRES_BY_FILM_ID_QUERY, this::mapRowToGenre, id);
     }
 
+    private List<Object[]> toBatchArgs(int id, Collection<Integer> genreIds) {
+        return genreIds.stream()
+                .map(genreId -> new Object[]{id, genreId})
+                .collect(Collectors.toList());
+    }
+
     private int mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
         return resultSet.getInt("genre_id");
     }
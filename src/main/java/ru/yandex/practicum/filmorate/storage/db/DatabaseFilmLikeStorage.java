@@ -4,37 +4,187 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @Primary
 public class DatabaseFilmLikeStorage implements FilmLikeStorage {
+    private final static RateLimitedLogger HOT_PATH_LOG = new RateLimitedLogger(log);
+    private final static String FILMS_CACHE = "films";
     private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
     private final static String ADD_LIKE_QUERY =
             "INSERT INTO film_like (film_id, user_id) " +
             "VALUES (?, ?);";
     private final static String DELETE_LIKE_QUERY =
             "DELETE FROM film_like " +
             "WHERE film_id = ? AND user_id = ?;";
+    private final static String ADD_LIKES_COUNT_QUERY =
+            "UPDATE film " +
+            "SET likes_count = likes_count + ?, " +
+            "    version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?;";
+    private final static String RECONCILE_LIKES_COUNT_QUERY =
+            "UPDATE film AS f " +
+            "SET likes_count = (SELECT COUNT(*) FROM film_like AS fl WHERE fl.film_id = f.id) " +
+            "WHERE likes_count <> (SELECT COUNT(*) FROM film_like AS fl WHERE fl.film_id = f.id);";
+    private final static String GET_LIKES_COUNT_QUERY =
+            "SELECT id, " +
+            "       likes_count " +
+            "FROM film;";
+    private final static String GET_LIKES_QUERY =
+            "SELECT film_id, " +
+            "       user_id " +
+            "FROM film_like " +
+            "ORDER BY film_id, user_id;";
 
-    @Autowired
     public DatabaseFilmLikeStorage(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, new NoOpCacheManager());
+    }
+
+    @Autowired
+    public DatabaseFilmLikeStorage(JdbcTemplate jdbcTemplate, CacheManager cacheManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
     }
 
     @Override
-    public void addLike(int id, int userId) {
-        jdbcTemplate.update(ADD_LIKE_QUERY, id, userId);
-        log.info("DatabaseFilmLikeStorage.addLike: like for film {} " +
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
+    public boolean addLike(int id, int userId) {
+        boolean added = jdbcTemplate.update(ADD_LIKE_QUERY, id, userId) > 0;
+        if (added) {
+            jdbcTemplate.update(ADD_LIKES_COUNT_QUERY, 1, id);
+        }
+        HOT_PATH_LOG.info("DatabaseFilmLikeStorage.addLike: like for film {} " +
                  "from user {} successfully added", id, userId);
+        return added;
     }
 
     @Override
-    public void deleteLike(int id, int userId) {
-        jdbcTemplate.update(DELETE_LIKE_QUERY, id, userId);
-        log.info("DatabaseFilmLikeStorage.deleteLike: like for film {} " +
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
+    public boolean deleteLike(int id, int userId) {
+        boolean deleted = jdbcTemplate.update(DELETE_LIKE_QUERY, id, userId) > 0;
+        if (deleted) {
+            jdbcTemplate.update(ADD_LIKES_COUNT_QUERY, -1, id);
+        }
+        HOT_PATH_LOG.info("DatabaseFilmLikeStorage.deleteLike: like for film {} " +
                  "from user {} successfully deleted", id, userId);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#id")
+    public void addLikes(int id, Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = userIds.stream()
+                .map(userId -> new Object[]{id, userId})
+                .collect(Collectors.toList());
+        int added = Arrays.stream(jdbcTemplate.batchUpdate(ADD_LIKE_QUERY, batchArgs)).sum();
+        jdbcTemplate.update(ADD_LIKES_COUNT_QUERY, added, id);
+        log.info("DatabaseFilmLikeStorage.addLikes: {} likes for film {} " +
+                 "successfully added", added, id);
+    }
+
+    @Override
+    @Transactional
+    public void addLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId) {
+        List<Object[]> likesBatchArgs = userIdsByFilmId.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(userId -> new Object[]{entry.getKey(), userId}))
+                .collect(Collectors.toList());
+        if (likesBatchArgs.isEmpty()) {
+            return;
+        }
+        List<Object[]> countBatchArgs = userIdsByFilmId.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> new Object[]{entry.getValue().size(), entry.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(ADD_LIKE_QUERY, likesBatchArgs);
+        jdbcTemplate.batchUpdate(ADD_LIKES_COUNT_QUERY, countBatchArgs);
+        evictFilms(userIdsByFilmId.keySet());
+        log.info("DatabaseFilmLikeStorage.addLikes: {} likes for {} films " +
+                 "successfully added", likesBatchArgs.size(), countBatchArgs.size());
+    }
+
+    @Override
+    @Transactional
+    public void deleteLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId) {
+        List<Object[]> likesBatchArgs = userIdsByFilmId.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(userId -> new Object[]{entry.getKey(), userId}))
+                .collect(Collectors.toList());
+        if (likesBatchArgs.isEmpty()) {
+            return;
+        }
+        int[] deleted = jdbcTemplate.batchUpdate(DELETE_LIKE_QUERY, likesBatchArgs);
+        Map<Integer, Integer> deletedByFilmId = new HashMap<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deletedByFilmId.merge((Integer) likesBatchArgs.get(i)[0], deleted[i], Integer::sum);
+            }
+        }
+        List<Object[]> countBatchArgs = deletedByFilmId.entrySet().stream()
+                .map(entry -> new Object[]{-entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(ADD_LIKES_COUNT_QUERY, countBatchArgs);
+        evictFilms(deletedByFilmId.keySet());
+        log.info("DatabaseFilmLikeStorage.deleteLikes: {} likes for {} films " +
+                 "successfully deleted", Arrays.stream(deleted).sum(), countBatchArgs.size());
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCount() {
+        Map<Integer, Integer> likesCount = new HashMap<>();
+        jdbcTemplate.query(GET_LIKES_COUNT_QUERY, resultSet -> {
+            likesCount.put(resultSet.getInt("id"), resultSet.getInt("likes_count"));
+        });
+        return likesCount;
+    }
+
+    @Override
+    public Map<Integer, IntSet> getLikes() {
+        Map<Integer, IntSet> likes = new HashMap<>();
+        jdbcTemplate.query(GET_LIKES_QUERY, resultSet -> {
+            likes.computeIfAbsent(resultSet.getInt("film_id"), id -> new IntSet())
+                    .add(resultSet.getInt("user_id"));
+        });
+        return likes;
+    }
+
+    @Transactional
+    public int reconcileLikesCount() {
+        int repaired = jdbcTemplate.update(RECONCILE_LIKES_COUNT_QUERY);
+        log.info("DatabaseFilmLikeStorage.reconcileLikesCount: likes count " +
+                 "repaired for {} films", repaired);
+        return repaired;
+    }
+
+    private void evictFilms(Collection<Integer> ids) {
+        Cache films = cacheManager.getCache(FILMS_CACHE);
+        if (films != null) {
+            ids.forEach(films::evict);
+        }
     }
 }
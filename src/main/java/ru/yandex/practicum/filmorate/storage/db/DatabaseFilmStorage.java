@@ -4,65 +4,73 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.dao.EmptyResultDataAccessException;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
-import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
-import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.IdListDecoder;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @Primary
 public class DatabaseFilmStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final FilmGenreStorage filmGenreStorage;
     private final FilmLikeStorage filmLikeStorage;
+    private final ReferenceDataCache referenceDataCache;
     private final static String GET_FILMS_QUERY =
             "SELECT f.id, " +
             "       f.name, " +
             "       f.description, " +
             "       f.release_date, " +
             "       f.duration, " +
-            "       mpa.id AS mpa_id, " +
-            "       mpa.name AS mpa_name, " +
-            "       GROUP_CONCAT(fl.user_id) AS user_ids, " +
-            "       GROUP_CONCAT(fg.genre_id) AS genre_ids " +
+            "       f.mpa_id, " +
+            "       f.version, " +
+            "       f.updated_at " +
             "FROM film AS f " +
-            "JOIN mpa ON f.mpa_id = mpa.id " +
-            "LEFT JOIN film_like AS fl ON f.id = fl.film_id " +
-            "LEFT JOIN film_genre AS fg ON f.id = fg.film_id " +
-            "GROUP BY f.id;";
-    private final static String GET_POPULAR_FILMS_QUERY =
+            "ORDER BY f.id;";
+    private final static String GET_FILMS_PAGE_QUERY =
             "SELECT f.id, " +
             "       f.name, " +
             "       f.description, " +
             "       f.release_date, " +
             "       f.duration, " +
-            "       mpa.id AS mpa_id, " +
-            "       mpa.name AS mpa_name, " +
-            "       GROUP_CONCAT(fl.user_id) AS user_ids, " +
-            "       GROUP_CONCAT(fg.genre_id) AS genre_ids " +
+            "       f.mpa_id, " +
+            "       f.version, " +
+            "       f.updated_at " +
             "FROM film AS f " +
-            "JOIN mpa ON f.mpa_id = mpa.id " +
-            "LEFT JOIN film_like AS fl ON f.id = fl.film_id " +
-            "LEFT JOIN film_genre AS fg ON f.id = fg.film_id " +
-            "GROUP BY f.id " +
-            "ORDER BY COUNT(fl.user_id) DESC " +
+            "WHERE f.id > ? " +
+            "ORDER BY f.id " +
             "LIMIT ?;";
     private final static String GET_FILM_BY_ID_QUERY =
             "SELECT f.id, " +
@@ -70,16 +78,39 @@ public class DatabaseFilmStorage implements FilmStorage {
             "       f.description, " +
             "       f.release_date, " +
             "       f.duration, " +
-            "       mpa.id AS mpa_id, " +
-            "       mpa.name AS mpa_name, " +
-            "       GROUP_CONCAT(fl.user_id) AS user_ids, " +
-            "       GROUP_CONCAT(fg.genre_id) AS genre_ids " +
+            "       f.mpa_id, " +
+            "       f.version, " +
+            "       f.updated_at " +
             "FROM film AS f " +
-            "JOIN mpa ON f.mpa_id = mpa.id " +
-            "LEFT JOIN film_like AS fl ON f.id = fl.film_id " +
-            "LEFT JOIN film_genre AS fg ON f.id = fg.film_id " +
-            "WHERE f.id = ? " +
-            "GROUP BY f.id;";
+            "WHERE f.id = ?;";
+    private final static String GET_FILMS_BY_IDS_QUERY =
+            "SELECT f.id, " +
+            "       f.name, " +
+            "       f.description, " +
+            "       f.release_date, " +
+            "       f.duration, " +
+            "       f.mpa_id, " +
+            "       f.version, " +
+            "       f.updated_at " +
+            "FROM film AS f " +
+            "WHERE f.id IN (:ids);";
+    private final static String GET_LIKES_BY_FILM_IDS_QUERY =
+            "SELECT film_id, " +
+            "       GROUP_CONCAT(user_id ORDER BY user_id) AS user_ids " +
+            "FROM film_like " +
+            "WHERE film_id IN (:ids) " +
+            "GROUP BY film_id;";
+    private final static String GET_GENRES_BY_FILM_IDS_QUERY =
+            "SELECT film_id, " +
+            "       GROUP_CONCAT(genre_id ORDER BY genre_id) AS genre_ids " +
+            "FROM film_genre " +
+            "WHERE film_id IN (:ids) " +
+            "GROUP BY film_id;";
+    private final static int FILM_IDS_BATCH_SIZE = 1000;
+    private final static String FILM_EXISTS_QUERY =
+            "SELECT COUNT(*) FROM film WHERE id = ?;";
+    private final static String COUNT_FILMS_BY_IDS_QUERY =
+            "SELECT COUNT(*) FROM film WHERE id IN (:ids);";
     private final static String ADD_FILM_QUERY =
             "INSERT INTO film (name, description, release_date, duration, mpa_id) " +
             "VALUES (?, ?, ?, ?, ?);";
@@ -89,7 +120,9 @@ public class DatabaseFilmStorage implements FilmStorage {
             "    description = ?, " +
             "    release_date = ?, " +
             "    duration = ?, " +
-            "    mpa_id = ? " +
+            "    mpa_id = ?, " +
+            "    version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
             "WHERE id = ?;";
     private final static String DELETE_FILM_BY_ID_QUERY = "DELETE FROM film WHERE id = ?;";
     private final static String GET_FILMS_BY_GENRE_QUERY =
@@ -98,45 +131,110 @@ public class DatabaseFilmStorage implements FilmStorage {
             "       f.description, " +
             "       f.release_date, " +
             "       f.duration, " +
-            "       mpa.id AS mpa_id, " +
-            "       mpa.name AS mpa_name " +
+            "       f.mpa_id, " +
+            "       f.version, " +
+            "       f.updated_at " +
             "FROM film AS f " +
-            "JOIN mpa ON f.mpa_id = mpa.id " +
             "JOIN film_genre AS fg ON f.id = fg.film_id " +
             "WHERE fg.genre_id = ?;";
 
     @Autowired
-    public DatabaseFilmStorage(JdbcTemplate jdbcTemplate, FilmGenreStorage filmGenreStorage,
-                               FilmLikeStorage filmLikeStorage) {
+    public DatabaseFilmStorage(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                               FilmGenreStorage filmGenreStorage,
+                               FilmLikeStorage filmLikeStorage,
+                               ReferenceDataCache referenceDataCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
         this.filmGenreStorage = filmGenreStorage;
         this.filmLikeStorage = filmLikeStorage;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Override
     public List<Film> getFilms() {
-        return jdbcTemplate.query(GET_FILMS_QUERY, this::mapRowToFilm);
+        return loadLikesAndGenres(jdbcTemplate.query(GET_FILMS_QUERY, this::mapRowToFilm));
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        return jdbcTemplate.query(GET_POPULAR_FILMS_QUERY, this::mapRowToFilm, count);
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        return loadLikesAndGenres(jdbcTemplate.query(GET_FILMS_PAGE_QUERY, this::mapRowToFilm,
+                                                     afterId, limit));
     }
 
     @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        Map<Integer, Film> batch = new LinkedHashMap<>();
+        jdbcTemplate.query(GET_FILMS_QUERY, resultSet -> {
+            Film film = mapRowToFilm(resultSet, 0);
+            batch.put(film.getId(), film);
+            if (batch.size() == FILM_IDS_BATCH_SIZE) {
+                flushFilms(batch, consumer);
+            }
+        });
+        flushFilms(batch, consumer);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        Map<Integer, Film> films = new HashMap<>();
+        for (List<Integer> batch : partition(ids)) {
+            namedParameterJdbcTemplate.query(GET_FILMS_BY_IDS_QUERY, Map.of("ids", batch),
+                    resultSet -> {
+                        Film film = mapRowToFilm(resultSet, 0);
+                        films.put(film.getId(), film);
+                    });
+        }
+        loadLikesAndGenres(films);
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Cacheable(cacheNames = "films", key = "#id")
     public Film getFilmById(int id) {
-        try {
-            return jdbcTemplate.queryForObject(GET_FILM_BY_ID_QUERY, this::mapRowToFilm, id);
-        } catch (EmptyResultDataAccessException e) {
-            String message = String.format("There is no film with id %d", id);
-            log.warn("FilmNotFoundException at DatabaseFilmStorage.getFIlmById: {}", message);
-            throw new FilmNotFoundException(message);
+        return findFilmById(id).orElseThrow(() -> {
+            log.debug("FilmNotFoundException at DatabaseFilmStorage.getFilmById: " +
+                      "there is no film with id {}", id);
+            return new FilmNotFoundException(id);
+        });
+    }
+
+    @Override
+    @Cacheable(cacheNames = "films", key = "#id", unless = "#result == null")
+    public Optional<Film> findFilmById(int id) {
+        List<Film> films = jdbcTemplate.query(GET_FILM_BY_ID_QUERY, this::mapRowToFilm, id);
+        if (films.isEmpty()) {
+            return Optional.empty();
+        }
+        loadLikesAndGenres(films);
+        return Optional.of(films.get(0));
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        Integer count = jdbcTemplate.queryForObject(FILM_EXISTS_QUERY, Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
         }
+        Integer count = namedParameterJdbcTemplate.queryForObject(COUNT_FILMS_BY_IDS_QUERY,
+                Map.of("ids", distinctIds), Integer.class);
+        return count != null && count == distinctIds.size();
     }
 
     @Override
+    @Transactional
     public Film addFilm(Film film) {
-        checkMpa(film.getMpa().getId());
+        referenceDataCache.getMpa(film.getMpa().getId());
+        referenceDataCache.checkGenres(film.getGenres());
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
             PreparedStatement statement = connection.prepareStatement(ADD_FILM_QUERY,
@@ -149,35 +247,67 @@ public class DatabaseFilmStorage implements FilmStorage {
             return statement;
         }, keyHolder);
         int id = keyHolder.getKey().intValue();
-        for (int userId : film.getLikes()) {
-            filmLikeStorage.addLike(id, userId);
-        }
-        for (int genreId : film.getGenres()) {
-            filmGenreStorage.addGenre(id, genreId);
-        }
+        filmLikeStorage.addLikes(id, film.getLikes());
+        filmGenreStorage.addGenres(id, film.getGenres());
         log.info("DatabaseFilmStorage.addFilm: film {} successfully added to database", id);
         return getFilmById(id);
     }
 
     @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        for (Film film : films) {
+            referenceDataCache.getMpa(film.getMpa().getId());
+            referenceDataCache.checkGenres(film.getGenres());
+        }
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_FILM_QUERY,
+                                                                           new String[]{"id"})) {
+                for (Film film : films) {
+                    statement.setString(1, film.getName());
+                    statement.setString(2, film.getDescription());
+                    statement.setDate(3, java.sql.Date.valueOf(film.getReleaseDate()));
+                    statement.setInt(4, film.getDuration());
+                    statement.setInt(5, film.getMpa().getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                return GeneratedIds.read(statement);
+            }
+        });
+        Map<Integer, IntSet> likesByFilmId = new HashMap<>();
+        Map<Integer, IntSet> genresByFilmId = new HashMap<>();
+        for (int i = 0; i < films.size(); i++) {
+            likesByFilmId.put(ids.get(i), films.get(i).getLikes());
+            genresByFilmId.put(ids.get(i), films.get(i).getGenres());
+        }
+        filmLikeStorage.addLikes(likesByFilmId);
+        filmGenreStorage.addGenres(genresByFilmId);
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(ids.get(i));
+        }
+        log.info("DatabaseFilmStorage.addFilms: {} films successfully added to database",
+                 films.size());
+        return films;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = "films", key = "#newFilm.id")
     public Film updateFilm(Film newFilm) {
-        checkMpa(newFilm.getMpa().getId());
+        referenceDataCache.getMpa(newFilm.getMpa().getId());
+        referenceDataCache.checkGenres(newFilm.getGenres());
         int id = newFilm.getId();
-        List<Integer> oldFilmGenres = filmGenreStorage.getGenresByFilmId(id);
-        for (int genreId : oldFilmGenres) {
-            filmGenreStorage.deleteGenre(id, genreId);
-        }
         jdbcTemplate.update(UPDATE_FILM_QUERY, newFilm.getName(), newFilm.getDescription(),
                             newFilm.getReleaseDate(), newFilm.getDuration(),
                             newFilm.getMpa().getId(), newFilm.getId());
-        for (int genreId : newFilm.getGenres()) {
-            filmGenreStorage.addGenre(id, genreId);
-        }
+        filmGenreStorage.replaceGenres(id, newFilm.getGenres());
         log.info("DatabaseFilmStorage.updateFilm: film {} successfully updated", id);
         return getFilmById(id);
     }
 
     @Override
+    @CacheEvict(cacheNames = "films", key = "#id")
     public void deleteFilmById(int id) {
         jdbcTemplate.update(DELETE_FILM_BY_ID_QUERY, id);
         log.info("DatabaseFilmStorage.deleteFilmById: film {} " +
@@ -185,71 +315,57 @@ public class DatabaseFilmStorage implements FilmStorage {
     }
 
     public List<Film> getFilmsByGenre(int id) {
-        checkGenre(id);
-        return jdbcTemplate.query(GET_FILMS_BY_GENRE_QUERY, this::mapRowToFilm, id);
+        referenceDataCache.getGenre(id);
+        return loadLikesAndGenres(jdbcTemplate.query(GET_FILMS_BY_GENRE_QUERY,
+                                                     this::mapRowToFilm, id));
     }
 
-    private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
-        int id = resultSet.getInt("id");
-        String name = resultSet.getString("name");
-        String description = resultSet.getString("description");
-        LocalDate releaseDate = resultSet.getDate("release_date").toLocalDate();
-        int duration = resultSet.getInt("duration");
-        int mpaId = resultSet.getInt("mpa_id");
-        String mpaName = resultSet.getString("mpa_name");
-        Mpa mpa = new Mpa(mpaId, mpaName);
-        HashSet<Integer> likes = new HashSet<>();
-        String likesRaw = resultSet.getString("user_ids");
-        if (likesRaw != null) {
-            String[] userIdsRaw = likesRaw.split(",");
-            for (String userIdRaw : userIdsRaw) {
-                int userId = Integer.parseInt(userIdRaw);
-                likes.add(userId);
-            }
-        }
-        HashSet<Integer> genres = new HashSet<>();
-        String genresRaw = resultSet.getString("genre_ids");
-        if (genresRaw != null) {
-            String[] genresIdsRaw = genresRaw.split(",");
-            for (String genreIdRaw : genresIdsRaw) {
-                int genreId = Integer.parseInt(genreIdRaw);
-                genres.add(genreId);
-            }
-        }
-        return new Film(id, name, description, releaseDate, duration, mpa, likes, genres);
+    private void flushFilms(Map<Integer, Film> batch, Consumer<Film> consumer) {
+        loadLikesAndGenres(batch);
+        batch.values().forEach(consumer);
+        batch.clear();
     }
 
-    private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
-        int id = resultSet.getInt("id");
-        String name = resultSet.getString("name");
-        return new Mpa(id, name);
+    private List<Film> loadLikesAndGenres(List<Film> films) {
+        loadLikesAndGenres(films.stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity())));
+        return films;
     }
 
-    private Genre mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
-        int id = resultSet.getInt("id");
-        String name = resultSet.getString("name");
-        return new Genre(id, name);
+    private void loadLikesAndGenres(Map<Integer, Film> films) {
+        for (List<Integer> batch : partition(new ArrayList<>(films.keySet()))) {
+            Map<String, List<Integer>> parameters = Map.of("ids", batch);
+            namedParameterJdbcTemplate.query(GET_LIKES_BY_FILM_IDS_QUERY, parameters,
+                    resultSet -> {
+                        Film film = films.get(resultSet.getInt("film_id"));
+                        IdListDecoder.decode(resultSet.getString("user_ids"), film.getLikes());
+                    });
+            namedParameterJdbcTemplate.query(GET_GENRES_BY_FILM_IDS_QUERY, parameters,
+                    resultSet -> {
+                        Film film = films.get(resultSet.getInt("film_id"));
+                        IdListDecoder.decode(resultSet.getString("genre_ids"), film.getGenres());
+                    });
+        }
     }
 
-    private void checkMpa(int id) {
-        String sql = "SELECT * FROM mpa WHERE id = ?;";
-        try {
-            jdbcTemplate.queryForObject(sql, this::mapRowToMpa, id);
-        } catch (EmptyResultDataAccessException e) {
-            String message = String.format("There is no MPA with id %d", id);
-            log.warn("MpaNotFoundException at DatabaseFilmStorage.checkMpa: {}", message);
-            throw new MpaNotFoundException(message);
+    private List<List<Integer>> partition(List<Integer> ids) {
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += FILM_IDS_BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(ids.size(), from + FILM_IDS_BATCH_SIZE)));
         }
+        return batches;
     }
 
-    private void checkGenre(int id) {
-        String sql = "SELECT * FROM genre WHERE id = ?;";
-        try {
-            jdbcTemplate.query(sql, this::mapRowToGenre, id);
-        } catch (EmptyResultDataAccessException e) {
-            String message = String.format("There is no genre with id %d", id);
-            log.warn("GenreNotFoundException at DatabaseFilmStorage.checkGenre: {}", message);
-            throw new GenreNotFoundException(message);
-        }
+    private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
+        int id = resultSet.getInt("id");
+        String name = resultSet.getString("name");
+        String description = resultSet.getString("description");
+        LocalDate releaseDate = resultSet.getDate("release_date").toLocalDate();
+        int duration = resultSet.getInt("duration");
+        Mpa mpa = referenceDataCache.getMpa(resultSet.getInt("mpa_id"));
+        Film film = new Film(id, name, description, releaseDate, duration, mpa, null, null);
+        film.setVersion(resultSet.getLong("version"));
+        film.setUpdatedAt(resultSet.getTimestamp("updated_at").toInstant());
+        return film;
     }
 }
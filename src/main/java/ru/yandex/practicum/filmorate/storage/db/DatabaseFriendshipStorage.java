@@ -4,13 +4,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Slf4j
 @Repository
 @Primary
 public class DatabaseFriendshipStorage implements FriendshipStorage {
+    private final static RateLimitedLogger HOT_PATH_LOG = new RateLimitedLogger(log);
     private final JdbcTemplate jdbcTemplate;
     private final static String ADD_FRIEND_QUERY =
             "INSERT INTO friendship (user_id, friend_id) " +
@@ -18,6 +26,16 @@ public class DatabaseFriendshipStorage implements FriendshipStorage {
     private final static String DELETE_FRIEND_QUERY =
             "DELETE FROM friendship " +
             "WHERE user_id = ? AND friend_id = ?;";
+    private final static String TOUCH_USER_QUERY =
+            "UPDATE user " +
+            "SET version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?;";
+    private final static String GET_FRIEND_IDS_QUERY =
+            "SELECT user_id, " +
+            "       friend_id " +
+            "FROM friendship " +
+            "ORDER BY user_id, friend_id;";
 
     @Autowired
     public DatabaseFriendshipStorage(JdbcTemplate jdbcTemplate) {
@@ -25,16 +43,33 @@ public class DatabaseFriendshipStorage implements FriendshipStorage {
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = "users", key = "#id")
     public void addFriend(int id, int friendId) {
         jdbcTemplate.update(ADD_FRIEND_QUERY, id, friendId);
-        log.info("DatabaseFriendshipStorage.addFriend: friend {} " +
+        jdbcTemplate.update(TOUCH_USER_QUERY, id);
+        HOT_PATH_LOG.info("DatabaseFriendshipStorage.addFriend: friend {} " +
                  "successfully added to user {} friends", friendId, id);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = "users", key = "#id")
     public void deleteFriend(int id, int friendId) {
-        jdbcTemplate.update(DELETE_FRIEND_QUERY, id, friendId);
-        log.info("DatabaseFriendshipStorage.deleteFriend: friend {} " +
+        if (jdbcTemplate.update(DELETE_FRIEND_QUERY, id, friendId) > 0) {
+            jdbcTemplate.update(TOUCH_USER_QUERY, id);
+        }
+        HOT_PATH_LOG.info("DatabaseFriendshipStorage.deleteFriend: friend {} " +
                  "successfully deleted from user {} friends", friendId, id);
     }
+
+    @Override
+    public Map<Integer, IntSet> getFriendIds() {
+        Map<Integer, IntSet> friendIds = new HashMap<>();
+        jdbcTemplate.query(GET_FRIEND_IDS_QUERY, resultSet -> {
+            friendIds.computeIfAbsent(resultSet.getInt("user_id"), id -> new IntSet())
+                    .add(resultSet.getInt("friend_id"));
+        });
+        return friendIds;
+    }
 }
@@ -4,10 +4,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
@@ -16,28 +21,69 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @Primary
 public class DatabaseUserStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final static int USER_IDS_BATCH_SIZE = 1000;
     private final static String GET_USERS_QUERY =
             "SELECT id, " +
             "       email, " +
             "       login, " +
             "       name, " +
-            "       birthday " +
+            "       birthday, " +
+            "       version, " +
+            "       updated_at " +
             "FROM user;";
+    private final static String GET_USERS_PAGE_QUERY =
+            "SELECT id, " +
+            "       email, " +
+            "       login, " +
+            "       name, " +
+            "       birthday, " +
+            "       version, " +
+            "       updated_at " +
+            "FROM user " +
+            "WHERE id > ? " +
+            "ORDER BY id " +
+            "LIMIT ?;";
     private final static String GET_USER_BY_ID_QUERY =
             "SELECT id, " +
             "       email, " +
             "       login, " +
             "       name, " +
-            "       birthday " +
+            "       birthday, " +
+            "       version, " +
+            "       updated_at " +
             "FROM user " +
             "WHERE id = ?;";
+    private final static String GET_USERS_BY_IDS_QUERY =
+            "SELECT id, " +
+            "       email, " +
+            "       login, " +
+            "       name, " +
+            "       birthday, " +
+            "       version, " +
+            "       updated_at " +
+            "FROM user " +
+            "WHERE id IN (:ids);";
+    private final static String USER_EXISTS_QUERY =
+            "SELECT COUNT(*) FROM user WHERE id = ?;";
+    private final static String COUNT_USERS_BY_IDS_QUERY =
+            "SELECT COUNT(*) FROM user WHERE id IN (:ids);";
     private final static String ADD_USER_QUERY =
             "INSERT INTO user (email, login, name, birthday) " +
             "VALUES (?, ?, ?, ?);";
@@ -46,32 +92,27 @@ public class DatabaseUserStorage implements UserStorage {
             "SET email = ?, " +
             "    login = ?, " +
             "    name = ?, " +
-            "    birthday = ? " +
+            "    birthday = ?, " +
+            "    version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
             "WHERE id = ?;";
     private final static String DELETE_USER_BY_ID_QUERY = "DELETE FROM user WHERE id = ?;";
-    private final static String GET_FRIENDS_LIST_BY_ID_QUERY =
-            "SELECT u.id, " +
-            "       u.email, " +
-            "       u.login, " +
-            "       u.name, " +
-            "       u.birthday " +
-            "FROM user AS u " +
-            "JOIN friendship AS sub ON u.id = sub.friend_id " +
-            "WHERE sub.user_id = ?;";
-    private final static String GET_COMMON_FRIENDS_QUERY =
-            "SELECT u.id, " +
-            "       u.email, " +
-            "       u.login, " +
-            "       u.name, " +
-            "       u.birthday " +
-            "FROM user AS u " +
-            "JOIN friendship AS sub ON u.id = sub.friend_id " +
-            "JOIN friendship AS sub_common ON sub.friend_id = sub_common.friend_id " +
-            "WHERE sub.user_id = ? AND sub_common.user_id = ?;";
+    private final static String TOUCH_LIKED_FILMS_QUERY =
+            "UPDATE film " +
+            "SET version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id IN (SELECT film_id FROM film_like WHERE user_id = ?);";
+    private final static String TOUCH_FRIENDS_QUERY =
+            "UPDATE user " +
+            "SET version = version + 1, " +
+            "    updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id IN (SELECT user_id FROM friendship WHERE friend_id = ?);";
 
     @Autowired
-    public DatabaseUserStorage(JdbcTemplate jdbcTemplate) {
+    public DatabaseUserStorage(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
     }
 
     @Override
@@ -80,14 +121,65 @@ public class DatabaseUserStorage implements UserStorage {
     }
 
     @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        return jdbcTemplate.query(GET_USERS_PAGE_QUERY, this::mapRowToUser, afterId, limit);
+    }
+
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        jdbcTemplate.query(GET_USERS_QUERY, resultSet -> {
+            consumer.accept(mapRowToUser(resultSet, 0));
+        });
+    }
+
+    @Override
+    public List<User> getUsersByIds(List<Integer> ids) {
+        Map<Integer, User> users = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += USER_IDS_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(from, Math.min(ids.size(), from + USER_IDS_BATCH_SIZE));
+            namedParameterJdbcTemplate.query(GET_USERS_BY_IDS_QUERY, Map.of("ids", batch),
+                    resultSet -> {
+                        User user = mapRowToUser(resultSet, 0);
+                        users.put(user.getId(), user);
+                    });
+        }
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Cacheable(cacheNames = "users", key = "#id")
     public User getUserById(int id) {
-        try {
-            return jdbcTemplate.queryForObject(GET_USER_BY_ID_QUERY, this::mapRowToUser, id);
-        } catch (EmptyResultDataAccessException e) {
-            String message = String.format("There is no user with id %d", id);
-            log.warn("UserNotFoundException at DatabaseUserStorage.getUserById: {}", message);
-            throw new UserNotFoundException(message);
+        return findUserById(id).orElseThrow(() -> {
+            log.debug("UserNotFoundException at DatabaseUserStorage.getUserById: " +
+                      "there is no user with id {}", id);
+            return new UserNotFoundException(id);
+        });
+    }
+
+    @Override
+    @Cacheable(cacheNames = "users", key = "#id", unless = "#result == null")
+    public Optional<User> findUserById(int id) {
+        return jdbcTemplate.query(GET_USER_BY_ID_QUERY, this::mapRowToUser, id).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        Integer count = jdbcTemplate.queryForObject(USER_EXISTS_QUERY, Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinctIds = new HashSet<>(ids);
+        if (distinctIds.isEmpty()) {
+            return true;
         }
+        Integer count = namedParameterJdbcTemplate.queryForObject(COUNT_USERS_BY_IDS_QUERY,
+                Map.of("ids", distinctIds), Integer.class);
+        return count != null && count == distinctIds.size();
     }
 
     @Override
@@ -108,6 +200,32 @@ public class DatabaseUserStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
+    public List<User> addUsers(List<User> users) {
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_USER_QUERY,
+                                                                           new String[]{"id"})) {
+                for (User user : users) {
+                    statement.setString(1, user.getEmail());
+                    statement.setString(2, user.getLogin());
+                    statement.setString(3, user.getName());
+                    statement.setDate(4, java.sql.Date.valueOf(user.getBirthday()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                return GeneratedIds.read(statement);
+            }
+        });
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+        }
+        log.info("DatabaseUserStorage.addUsers: {} users successfully added to database",
+                 users.size());
+        return users;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = "users", key = "#newUser.id")
     public User updateUser(User newUser) {
         jdbcTemplate.update(UPDATE_USER_QUERY, newUser.getEmail(), newUser.getLogin(),
                             newUser.getName(), newUser.getBirthday(), newUser.getId());
@@ -117,26 +235,28 @@ public class DatabaseUserStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", allEntries = true),
+            @CacheEvict(cacheNames = "films", allEntries = true)
+    })
     public void deleteUserById(int id) {
+        jdbcTemplate.update(TOUCH_LIKED_FILMS_QUERY, id);
+        jdbcTemplate.update(TOUCH_FRIENDS_QUERY, id);
         jdbcTemplate.update(DELETE_USER_BY_ID_QUERY, id);
         log.info("DatabaseUserStorage.deleteUserById: user {} " +
                  "successfully deleted from database", id);
     }
 
-    public List<User> getFriendsListById(int id) {
-        return jdbcTemplate.query(GET_FRIENDS_LIST_BY_ID_QUERY, this::mapRowToUser, id);
-    }
-
-    public List<User> getCommonFriends(int id, int otherId) {
-        return jdbcTemplate.query(GET_COMMON_FRIENDS_QUERY, this::mapRowToUser, id, otherId);
-    }
-
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
         int id = resultSet.getInt("id");
         String email = resultSet.getString("email");
         String login = resultSet.getString("login");
         String name = resultSet.getString("name");
         LocalDate birthday = resultSet.getDate("birthday").toLocalDate();
-        return new User(id, email, login, name, birthday);
+        User user = new User(id, email, login, name, birthday);
+        user.setVersion(resultSet.getLong("version"));
+        user.setUpdatedAt(resultSet.getTimestamp("updated_at").toInstant());
+        return user;
     }
 }
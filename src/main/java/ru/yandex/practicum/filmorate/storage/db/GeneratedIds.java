@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+final class GeneratedIds {
+    private GeneratedIds() {
+    }
+
+    static List<Integer> read(PreparedStatement statement) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                ids.add(generatedKeys.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
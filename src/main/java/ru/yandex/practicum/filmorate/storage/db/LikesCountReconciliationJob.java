@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Component
+public class LikesCountReconciliationJob {
+    private final DatabaseFilmLikeStorage filmLikeStorage;
+
+    @Autowired
+    public LikesCountReconciliationJob(DatabaseFilmLikeStorage filmLikeStorage) {
+        this.filmLikeStorage = filmLikeStorage;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.likes-count.reconcile-initial-delay-ms:60000}",
+               fixedDelayString = "${filmorate.likes-count.reconcile-delay-ms:3600000}")
+    public void reconcile() {
+        filmLikeStorage.reconcileLikesCount();
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import javax.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ReferenceDataCache {
+    private final JdbcTemplate jdbcTemplate;
+    private final static String GET_MPA_QUERY = "SELECT id, name FROM mpa;";
+    private final static String GET_GENRES_QUERY = "SELECT id, name FROM genre;";
+    private final static long DEFAULT_MISS_REFRESH_INTERVAL_MS = 10_000;
+    private final long missRefreshIntervalNanos;
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+    private volatile Map<Integer, Mpa> mpa = Map.of();
+    private volatile Map<Integer, Genre> genres = Map.of();
+
+    public ReferenceDataCache(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_MISS_REFRESH_INTERVAL_MS);
+    }
+
+    @Autowired
+    public ReferenceDataCache(JdbcTemplate jdbcTemplate,
+                              @Value("${filmorate.reference-data.miss-refresh-interval-ms:10000}")
+                              long missRefreshIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.missRefreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(missRefreshIntervalMs);
+    }
+
+    @PostConstruct
+    public void refresh() {
+        mpa = jdbcTemplate.query(GET_MPA_QUERY, this::mapRowToMpa).stream()
+                .collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity()));
+        genres = jdbcTemplate.query(GET_GENRES_QUERY, this::mapRowToGenre).stream()
+                .collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity()));
+        lastRefreshNanos.set(System.nanoTime());
+        log.info("ReferenceDataCache.refresh: {} MPA ratings and {} genres loaded",
+                 mpa.size(), genres.size());
+    }
+
+    public Mpa getMpa(int id) {
+        Mpa result = mpa.get(id);
+        if (result == null && refreshOnMiss()) {
+            result = mpa.get(id);
+        }
+        if (result == null) {
+            log.debug("MpaNotFoundException at ReferenceDataCache.getMpa: " +
+                      "there is no MPA with id {}", id);
+            throw new MpaNotFoundException(id);
+        }
+        return result;
+    }
+
+    public Genre getGenre(int id) {
+        Genre result = genres.get(id);
+        if (result == null && refreshOnMiss()) {
+            result = genres.get(id);
+        }
+        if (result == null) {
+            log.debug("GenreNotFoundException at ReferenceDataCache.getGenre: " +
+                      "there is no genre with id {}", id);
+            throw new GenreNotFoundException(id);
+        }
+        return result;
+    }
+
+    public void checkGenres(Collection<Integer> ids) {
+        ids.forEach(this::getGenre);
+    }
+
+    private boolean refreshOnMiss() {
+        long now = System.nanoTime();
+        long last = lastRefreshNanos.get();
+        if (now - last < missRefreshIntervalNanos || !lastRefreshNanos.compareAndSet(last, now)) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
+        int id = resultSet.getInt("id");
+        String name = resultSet.getString("name");
+        return new Mpa(id, name);
+    }
+
+    private Genre mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
+        int id = resultSet.getInt("id");
+        String name = resultSet.getString("name");
+        return new Genre(id, name);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Component
+public class ReferenceDataRefreshJob {
+    private final ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    public ReferenceDataRefreshJob(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.reference-data.refresh-delay-ms:300000}",
+               fixedDelayString = "${filmorate.reference-data.refresh-delay-ms:300000}")
+    public void refresh() {
+        referenceDataCache.refresh();
+    }
+}
@@ -5,10 +5,17 @@ import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 @Slf4j
 @Component
 public class InMemoryFilmLikeStorage implements FilmLikeStorage {
+    private final static RateLimitedLogger HOT_PATH_LOG = new RateLimitedLogger(log);
     private final InMemoryFilmStorage inMemoryFilmStorage;
     private final InMemoryUserStorage inMemoryUserStorage;
 
@@ -20,20 +27,92 @@ public class InMemoryFilmLikeStorage implements FilmLikeStorage {
     }
 
     @Override
-    public void addLike(int id, int userId) {
-        inMemoryUserStorage.getUserById(userId);
-        Film film = inMemoryFilmStorage.getFilmById(id);
-        film.getLikes().add(userId);
-        log.info("InMemoryFilmLikeStorage.addLike: like for film {} " +
+    public boolean addLike(int id, int userId) {
+        inMemoryUserStorage.getStoredUser(userId);
+        Film film = inMemoryFilmStorage.getStoredFilm(id);
+        boolean added;
+        Lock lock = inMemoryFilmStorage.lockFor(id);
+        lock.lock();
+        try {
+            added = film.getLikes().add(userId);
+            if (added) {
+                inMemoryFilmStorage.touch(film);
+            }
+        } finally {
+            lock.unlock();
+        }
+        HOT_PATH_LOG.info("InMemoryFilmLikeStorage.addLike: like for film {} " +
                  "from user {} successfully added", id, userId);
+        return added;
     }
 
     @Override
-    public void deleteLike(int id, int userId) {
-        inMemoryUserStorage.getUserById(userId);
-        Film film = inMemoryFilmStorage.getFilmById(id);
-        film.getLikes().remove(userId);
-        log.info("InMemoryFilmLikeStorage.deleteLike: like for film {} " +
+    public boolean deleteLike(int id, int userId) {
+        inMemoryUserStorage.getStoredUser(userId);
+        Film film = inMemoryFilmStorage.getStoredFilm(id);
+        boolean deleted;
+        Lock lock = inMemoryFilmStorage.lockFor(id);
+        lock.lock();
+        try {
+            deleted = film.getLikes().remove(userId);
+            if (deleted) {
+                inMemoryFilmStorage.touch(film);
+            }
+        } finally {
+            lock.unlock();
+        }
+        HOT_PATH_LOG.info("InMemoryFilmLikeStorage.deleteLike: like for film {} " +
                  "from user {} successfully deleted", id, userId);
+        return deleted;
+    }
+
+    @Override
+    public void addLikes(int id, Collection<Integer> userIds) {
+        userIds.forEach(inMemoryUserStorage::getStoredUser);
+        Film film = inMemoryFilmStorage.getStoredFilm(id);
+        Lock lock = inMemoryFilmStorage.lockFor(id);
+        lock.lock();
+        try {
+            if (film.getLikes().addAll(userIds)) {
+                inMemoryFilmStorage.touch(film);
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("InMemoryFilmLikeStorage.addLikes: {} likes for film {} " +
+                 "successfully added", userIds.size(), id);
+    }
+
+    @Override
+    public void addLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId) {
+        userIdsByFilmId.forEach(this::addLikes);
+    }
+
+    @Override
+    public void deleteLikes(Map<Integer, ? extends Collection<Integer>> userIdsByFilmId) {
+        userIdsByFilmId.forEach((id, userIds) -> {
+            Film film = inMemoryFilmStorage.getStoredFilm(id);
+            Lock lock = inMemoryFilmStorage.lockFor(id);
+            lock.lock();
+            try {
+                if (film.getLikes().removeAll(userIds)) {
+                    inMemoryFilmStorage.touch(film);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        log.info("InMemoryFilmLikeStorage.deleteLikes: likes for {} films " +
+                 "successfully deleted", userIdsByFilmId.size());
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCount() {
+        return inMemoryFilmStorage.getLikesCount();
+    }
+
+    @Override
+    public Map<Integer, IntSet> getLikes() {
+        return inMemoryFilmStorage.getLikes();
     }
 }
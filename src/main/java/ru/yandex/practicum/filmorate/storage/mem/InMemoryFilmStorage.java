@@ -6,60 +6,120 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FilmIdGenerator;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.LockStripes;
 
+import java.time.Instant;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new HashMap<>();
+    private final static int LOCK_STRIPES = 64;
+    private final Map<Integer, Film> films = new ConcurrentHashMap<>();
+    private final LockStripes locks = new LockStripes(LOCK_STRIPES);
 
     @Override
     public List<Film> getFilms() {
-        return new ArrayList<>(films.values());
+        return films.values().stream()
+                .map(this::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::snapshot)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        return getFilms().stream()
-                .sorted(this::compare)
-                .limit(count)
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        return films.values().stream()
+                .filter(film -> film.getId() > afterId)
+                .sorted(Comparator.comparingInt(Film::getId))
+                .limit(limit)
+                .map(this::snapshot)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void streamFilms(Consumer<Film> consumer) {
+        getFilms().forEach(consumer);
+    }
+
     @Override
     public Film getFilmById(int id) {
-        if (!films.containsKey(id)) {
-            String message = String.format("There is no film with id %d", id);
-            log.warn("FilmNotFoundException at InMemoryFilmStorage.getFilmById: {}", message);
-            throw new FilmNotFoundException(message);
-        }
-        return films.get(id);
+        return snapshot(getStoredFilm(id));
+    }
+
+    @Override
+    public Optional<Film> findFilmById(int id) {
+        Film film = films.get(id);
+        return film == null ? Optional.empty() : Optional.of(snapshot(film));
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return films.containsKey(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        return films.keySet().containsAll(ids);
     }
 
     @Override
     public Film addFilm(Film film) {
         film.setId(FilmIdGenerator.getFilmId());
-        films.put(film.getId(), film);
+        Film stored = copy(film);
+        stored.setVersion(0);
+        stored.setUpdatedAt(Instant.now());
+        films.put(stored.getId(), stored);
         log.info("InMemoryFilmStorage.addFilm: film {} " +
                  "successfully added to storage", film.getId());
-        return film;
+        return snapshot(stored);
+    }
+
+    @Override
+    public List<Film> addFilms(List<Film> films) {
+        return films.stream()
+                .map(this::addFilm)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Film updateFilm(Film newFilm) {
-        Film film = getFilmById(newFilm.getId());
-        film.setName(newFilm.getName());
-        film.setDescription(newFilm.getDescription());
-        film.setReleaseDate(newFilm.getReleaseDate());
-        film.setDuration(newFilm.getDuration());
+        Film film = getStoredFilm(newFilm.getId());
+        Lock lock = lockFor(film.getId());
+        lock.lock();
+        try {
+            film.setName(newFilm.getName());
+            film.setDescription(newFilm.getDescription());
+            film.setReleaseDate(newFilm.getReleaseDate());
+            film.setDuration(newFilm.getDuration());
+            film.setMpa(newFilm.getMpa());
+            film.getGenres().clear();
+            film.getGenres().addAll(newFilm.getGenres());
+            touch(film);
+        } finally {
+            lock.unlock();
+        }
         log.info("InMemoryFilmStorage.updateFilm: film {} " +
                  "successfully updated", film.getId());
-        return film;
+        return snapshot(film);
     }
 
     @Override
@@ -69,7 +129,71 @@ public class InMemoryFilmStorage implements FilmStorage {
                  "successfully deleted from storage", id);
     }
 
-    private int compare(Film film1, Film film2) {
-        return film2.getLikes().size() - film1.getLikes().size();
+    Film getStoredFilm(int id) {
+        Film film = films.get(id);
+        if (film == null) {
+            log.debug("FilmNotFoundException at InMemoryFilmStorage.getFilmById: " +
+                      "there is no film with id {}", id);
+            throw new FilmNotFoundException(id);
+        }
+        return film;
+    }
+
+    Lock lockFor(int id) {
+        return locks.lockFor(id);
+    }
+
+    void touch(Film film) {
+        film.setVersion(film.getVersion() + 1);
+        film.setUpdatedAt(Instant.now());
+    }
+
+    Map<Integer, Integer> getLikesCount() {
+        Map<Integer, Integer> likesCount = new HashMap<>();
+        for (Film film : films.values()) {
+            Lock lock = lockFor(film.getId());
+            lock.lock();
+            try {
+                likesCount.put(film.getId(), film.getLikes().size());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return likesCount;
+    }
+
+    Map<Integer, IntSet> getLikes() {
+        Map<Integer, IntSet> likes = new HashMap<>();
+        for (Film film : films.values()) {
+            Lock lock = lockFor(film.getId());
+            lock.lock();
+            try {
+                if (!film.getLikes().isEmpty()) {
+                    likes.put(film.getId(), new IntSet(film.getLikes()));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return likes;
+    }
+
+    private Film snapshot(Film film) {
+        Lock lock = lockFor(film.getId());
+        lock.lock();
+        try {
+            return copy(film);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film(film.getId(), film.getName(), film.getDescription(),
+                film.getReleaseDate(), film.getDuration(), film.getMpa(), film.getLikes(),
+                film.getGenres());
+        copy.setVersion(film.getVersion());
+        copy.setUpdatedAt(film.getUpdatedAt());
+        return copy;
     }
 }
@@ -5,10 +5,16 @@ import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
+
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 @Slf4j
 @Component
 public class InMemoryFriendshipStorage implements FriendshipStorage {
+    private final static RateLimitedLogger HOT_PATH_LOG = new RateLimitedLogger(log);
     private final InMemoryUserStorage inMemoryUserStorage;
 
     @Autowired
@@ -18,19 +24,40 @@ public class InMemoryFriendshipStorage implements FriendshipStorage {
 
     @Override
     public void addFriend(int id, int friendId) {
-        User user = inMemoryUserStorage.getUserById(id);
-        inMemoryUserStorage.getUserById(friendId);
-        user.getFriends().add(friendId);
-        log.info("InMemoryFriendshipStorage.addFriend: friend {} " +
+        User user = inMemoryUserStorage.getStoredUser(id);
+        inMemoryUserStorage.getStoredUser(friendId);
+        Lock lock = inMemoryUserStorage.lockFor(id);
+        lock.lock();
+        try {
+            if (user.getFriends().add(friendId)) {
+                inMemoryUserStorage.touch(user);
+            }
+        } finally {
+            lock.unlock();
+        }
+        HOT_PATH_LOG.info("InMemoryFriendshipStorage.addFriend: friend {} " +
                  "successfully added to user {} friends", friendId, id);
     }
 
     @Override
     public void deleteFriend(int id, int friendId) {
-        User user = inMemoryUserStorage.getUserById(id);
-        inMemoryUserStorage.getUserById(friendId);
-        user.getFriends().remove(friendId);
-        log.info("InMemoryFriendshipStorage.deleteFriend: friend {} " +
+        User user = inMemoryUserStorage.getStoredUser(id);
+        inMemoryUserStorage.getStoredUser(friendId);
+        Lock lock = inMemoryUserStorage.lockFor(id);
+        lock.lock();
+        try {
+            if (user.getFriends().remove(friendId)) {
+                inMemoryUserStorage.touch(user);
+            }
+        } finally {
+            lock.unlock();
+        }
+        HOT_PATH_LOG.info("InMemoryFriendshipStorage.deleteFriend: friend {} " +
                  "successfully deleted from user {} friends", friendId, id);
     }
+
+    @Override
+    public Map<Integer, IntSet> getFriendIds() {
+        return inMemoryUserStorage.getFriendIds();
+    }
 }
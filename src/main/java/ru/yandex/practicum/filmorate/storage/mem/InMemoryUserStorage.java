@@ -8,101 +8,236 @@ import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.EmailAlreadyTakenException;
 import ru.yandex.practicum.filmorate.exception.LoginAlreadyTakenException;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.LockStripes;
 
+import java.time.Instant;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new HashMap<>();
+    private final static int LOCK_STRIPES = 64;
+    private final Map<Integer, User> users = new ConcurrentHashMap<>();
+    private final Map<String, Integer> emails = new ConcurrentHashMap<>();
+    private final Map<String, Integer> logins = new ConcurrentHashMap<>();
+    private final LockStripes locks = new LockStripes(LOCK_STRIPES);
 
     @Override
     public List<User> getUsers() {
-        return new ArrayList<>(users.values());
+        return users.values().stream()
+                .map(this::snapshot)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public List<User> getFriendsListById(int id) {
-        return getUserById(id).getFriends().stream()
-                .map(this::getUserById)
+    public List<User> getUsersByIds(List<Integer> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::snapshot)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<User> getCommonFriends(int id, int otherId) {
-        return getUserById(id).getFriends().stream()
-                .filter(friendId -> getUserById(otherId).getFriends().contains(friendId))
-                .map(this::getUserById)
+    public List<User> getUsersPage(int afterId, int limit) {
+        return users.values().stream()
+                .filter(user -> user.getId() > afterId)
+                .sorted(Comparator.comparingInt(User::getId))
+                .limit(limit)
+                .map(this::snapshot)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void streamUsers(Consumer<User> consumer) {
+        getUsers().forEach(consumer);
+    }
+
     @Override
     public User getUserById(int id) {
-        if (!users.containsKey(id)) {
-            String message = String.format("There is no user with id %d", id);
-            log.warn("UserNotFoundException at InMemoryUserStorage.getUserById: {}", message);
-            throw new UserNotFoundException(message);
-        }
-        return users.get(id);
+        return snapshot(getStoredUser(id));
+    }
+
+    @Override
+    public Optional<User> findUserById(int id) {
+        User user = users.get(id);
+        return user == null ? Optional.empty() : Optional.of(snapshot(user));
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        return users.keySet().containsAll(ids);
     }
 
     @Override
     public User addUser(User user) {
-        checkEmailAvailability(user);
-        checkLoginAvailability(user);
-        user.setId(UserIdGenerator.getUserId());
-        users.put(user.getId(), user);
+        int id = UserIdGenerator.getUserId();
+        reserveEmail(user.getEmail(), id);
+        try {
+            reserveLogin(user.getLogin(), id);
+        } catch (LoginAlreadyTakenException e) {
+            emails.remove(user.getEmail(), id);
+            throw e;
+        }
+        user.setId(id);
+        User stored = copy(user);
+        stored.setVersion(0);
+        stored.setUpdatedAt(Instant.now());
+        users.put(id, stored);
         log.info("InMemoryUserStorage.addUser: user {} " +
                  "successfully added to storage", user.getId());
-        return user;
+        return snapshot(stored);
+    }
+
+    @Override
+    public List<User> addUsers(List<User> users) {
+        return users.stream()
+                .map(this::addUser)
+                .collect(Collectors.toList());
     }
 
     @Override
     public User updateUser(User newUser) {
-        User user = getUserById(newUser.getId());
-        if (!user.getEmail().equals(newUser.getEmail())) {
-            checkEmailAvailability(newUser);
-        }
-        if (!user.getLogin().equals(newUser.getLogin())) {
-            checkLoginAvailability(newUser);
+        User user = getStoredUser(newUser.getId());
+        Lock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            if (!user.getEmail().equals(newUser.getEmail())) {
+                reserveEmail(newUser.getEmail(), user.getId());
+            }
+            if (!user.getLogin().equals(newUser.getLogin())) {
+                try {
+                    reserveLogin(newUser.getLogin(), user.getId());
+                } catch (LoginAlreadyTakenException e) {
+                    if (!user.getEmail().equals(newUser.getEmail())) {
+                        emails.remove(newUser.getEmail(), user.getId());
+                    }
+                    throw e;
+                }
+            }
+            if (!user.getEmail().equals(newUser.getEmail())) {
+                emails.remove(user.getEmail(), user.getId());
+            }
+            if (!user.getLogin().equals(newUser.getLogin())) {
+                logins.remove(user.getLogin(), user.getId());
+            }
+            user.setEmail(newUser.getEmail());
+            user.setLogin(newUser.getLogin());
+            user.setName(newUser.getName());
+            user.setBirthday(newUser.getBirthday());
+            touch(user);
+        } finally {
+            lock.unlock();
         }
-        user.setEmail(newUser.getEmail());
-        user.setLogin(newUser.getLogin());
-        user.setName(newUser.getName());
-        user.setBirthday(newUser.getBirthday());
         log.info("InMemoryUserStorage.updateUser: user {} " +
                  "successfully updated", user.getId());
-        return user;
+        return snapshot(user);
     }
 
     @Override
     public void deleteUserById(int id) {
-        users.remove(id);
+        User user = users.remove(id);
+        if (user != null) {
+            Lock lock = lockFor(id);
+            lock.lock();
+            try {
+                emails.remove(user.getEmail(), id);
+                logins.remove(user.getLogin(), id);
+            } finally {
+                lock.unlock();
+            }
+        }
         log.info("InMemoryUserStorage.deleteUserById: user {} " +
                  "successfully deleted from storage", id);
     }
 
-    private void checkEmailAvailability(User newUser) {
-        for (User user : users.values()) {
-            if (user.getEmail().equals(newUser.getEmail())) {
-                String message = String.format("Email %s is already taken", newUser.getEmail());
-                log.warn("EmailAlreadyTakenException at InMemoryUserStorage.addUser: {}", message);
-                throw new EmailAlreadyTakenException(message);
-            }
+    User getStoredUser(int id) {
+        User user = users.get(id);
+        if (user == null) {
+            log.debug("UserNotFoundException at InMemoryUserStorage.getUserById: " +
+                      "there is no user with id {}", id);
+            throw new UserNotFoundException(id);
         }
+        return user;
     }
 
-    private void checkLoginAvailability(User newUser) {
+    Lock lockFor(int id) {
+        return locks.lockFor(id);
+    }
+
+    void touch(User user) {
+        user.setVersion(user.getVersion() + 1);
+        user.setUpdatedAt(Instant.now());
+    }
+
+    Map<Integer, IntSet> getFriendIds() {
+        Map<Integer, IntSet> friendIds = new HashMap<>();
         for (User user : users.values()) {
-            if (user.getLogin().equals(newUser.getLogin())) {
-                String message = String.format("Login %s is already taken", newUser.getLogin());
-                log.warn("LoginAlreadyTakenException at InMemoryUserStorage.addUser: {}", message);
-                throw new LoginAlreadyTakenException(message);
+            IntSet friends = getFriendIds(user);
+            if (!friends.isEmpty()) {
+                friendIds.put(user.getId(), friends);
             }
         }
+        return friendIds;
+    }
+
+    private IntSet getFriendIds(User user) {
+        Lock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            return new IntSet(user.getFriends());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private User snapshot(User user) {
+        Lock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            return copy(user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+        copy.getFriends().addAll(user.getFriends());
+        copy.setVersion(user.getVersion());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    private void reserveEmail(String email, int id) {
+        if (emails.putIfAbsent(email, id) != null) {
+            String message = String.format("Email %s is already taken", email);
+            log.warn("EmailAlreadyTakenException at InMemoryUserStorage.addUser: {}", message);
+            throw new EmailAlreadyTakenException(message);
+        }
+    }
+
+    private void reserveLogin(String login, int id) {
+        if (logins.putIfAbsent(login, id) != null) {
+            String message = String.format("Login %s is already taken", login);
+            log.warn("LoginAlreadyTakenException at InMemoryUserStorage.addUser: {}", message);
+            throw new LoginAlreadyTakenException(message);
+        }
     }
 }
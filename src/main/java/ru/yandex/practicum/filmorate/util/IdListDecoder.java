@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.util;
+
+public final class IdListDecoder {
+    private final static long MAX_NEGATIVE_MAGNITUDE = -(long) Integer.MIN_VALUE;
+
+    private IdListDecoder() {
+    }
+
+    public static void decode(CharSequence idsRaw, IntSet ids) {
+        if (idsRaw == null) {
+            return;
+        }
+        int length = idsRaw.length();
+        ids.ensureCapacity(ids.size() + countIds(idsRaw, length));
+        long value = 0;
+        int digits = 0;
+        boolean negative = false;
+        for (int i = 0; i < length; i++) {
+            char c = idsRaw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > (negative ? MAX_NEGATIVE_MAGNITUDE : Integer.MAX_VALUE)) {
+                    throw invalid(idsRaw);
+                }
+            } else if (c == ',') {
+                addId(idsRaw, ids, value, digits, negative);
+                value = 0;
+                digits = 0;
+                negative = false;
+            } else if (c == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else if (c != ' ') {
+                throw invalid(idsRaw);
+            }
+        }
+        addId(idsRaw, ids, value, digits, negative);
+    }
+
+    private static int countIds(CharSequence idsRaw, int length) {
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (idsRaw.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void addId(CharSequence idsRaw, IntSet ids, long value, int digits, boolean negative) {
+        if (digits == 0) {
+            throw invalid(idsRaw);
+        }
+        ids.add((int) (negative ? -value : value));
+    }
+
+    private static NumberFormatException invalid(CharSequence idsRaw) {
+        return new NumberFormatException("Invalid id list: \"" + idsRaw + "\"");
+    }
+}
@@ -0,0 +1,210 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+public class IntSet extends AbstractSet<Integer> {
+    private final static int[] EMPTY = new int[0];
+    private final static int MIN_CAPACITY = 4;
+    private int[] values;
+    private int size;
+
+    public IntSet() {
+        values = EMPTY;
+    }
+
+    public IntSet(Collection<Integer> values) {
+        if (values instanceof IntSet) {
+            IntSet other = (IntSet) values;
+            this.values = Arrays.copyOf(other.values, other.size);
+            this.size = other.size;
+        } else {
+            this.values = EMPTY;
+            addAll(values);
+        }
+    }
+
+    public static IntSet of(int... values) {
+        IntSet set = new IntSet();
+        set.addAll(values, values.length);
+        return set;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (size > 0 && values[size - 1] < value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return true;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertionPoint = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+        values[insertionPoint] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void addAll(int[] newValues, int length) {
+        if (length == 0) {
+            return;
+        }
+        ensureCapacity(size + length);
+        System.arraycopy(newValues, 0, values, size, length);
+        int newSize = size + length;
+        Arrays.sort(values, 0, newSize);
+        int unique = 1;
+        for (int i = 1; i < newSize; i++) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        size = unique;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public void trimToSize() {
+        if (values.length > size) {
+            values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Integer && contains((int) (Integer) value);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add((int) value);
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Integer && remove((int) (Integer) value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> collection) {
+        if (collection.isEmpty()) {
+            return false;
+        }
+        int[] newValues = new int[collection.size()];
+        int length = 0;
+        for (Integer value : collection) {
+            newValues[length++] = value;
+        }
+        int oldSize = size;
+        addAll(newValues, length);
+        return size != oldSize;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        if (!(collection instanceof IntSet)) {
+            return super.retainAll(collection);
+        }
+        IntSet other = (IntSet) collection;
+        int retained = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < other.size; ) {
+            if (values[i] < other.values[j]) {
+                i++;
+            } else if (values[i] > other.values[j]) {
+                j++;
+            } else {
+                values[retained++] = values[i];
+                i++;
+                j++;
+            }
+        }
+        boolean modified = retained != size;
+        size = retained;
+        return modified;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                canRemove = true;
+                return values[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                IntSet.this.remove(values[--next]);
+            }
+        };
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            int newCapacity = Math.max(MIN_CAPACITY, Math.max(capacity, values.length + (values.length >> 1)));
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+}
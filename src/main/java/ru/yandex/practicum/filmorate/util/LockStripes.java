@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class LockStripes {
+    private final Lock[] locks;
+    private final int mask;
+
+    public LockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock lockFor(int id) {
+        int hash = id * 0x9E3779B9;
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    public Lock lockFor(int id, int otherId) {
+        return lockFor(31 * id + otherId);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitedLogger {
+    private final static int DEFAULT_MESSAGES_PER_SECOND = 10;
+    private final static long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final Logger logger;
+    private final int messagesPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger messages = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger logger) {
+        this(logger, DEFAULT_MESSAGES_PER_SECOND);
+    }
+
+    public RateLimitedLogger(Logger logger, int messagesPerSecond) {
+        this.logger = logger;
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (logger.isInfoEnabled() && tryAcquire()) {
+            logger.info(format, arg1, arg2);
+        }
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            messages.set(0);
+            long count = suppressed.getAndSet(0);
+            if (count > 0) {
+                logger.info("RateLimitedLogger: {} similar messages suppressed in the last window", count);
+            }
+        }
+        if (messages.incrementAndGet() <= messagesPerSecond) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+}
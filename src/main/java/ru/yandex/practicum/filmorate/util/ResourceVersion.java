@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResourceVersion {
+    private final String name;
+    private final String epoch;
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified;
+
+    public ResourceVersion(String name) {
+        long now = System.currentTimeMillis();
+        this.name = name;
+        this.epoch = Long.toString(now, 36);
+        this.lastModified = now;
+    }
+
+    public void increment() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    public String getETag(String variant) {
+        return "\"" + name + "-" + epoch + "-" + version.get() + "-" + variant + "\"";
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -6,6 +6,10 @@ CREATE TABLE IF NOT EXISTS user (
     birthday date
 );
 
+ALTER TABLE user ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE user ADD COLUMN IF NOT EXISTS updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
 CREATE TABLE IF NOT EXISTS friendship (
     user_id int REFERENCES user ON DELETE CASCADE,
     friend_id int REFERENCES user ON DELETE CASCADE,
@@ -31,6 +35,14 @@ CREATE TABLE IF NOT EXISTS film (
     mpa_id int REFERENCES mpa
 );
 
+ALTER TABLE film ADD COLUMN IF NOT EXISTS likes_count int NOT NULL DEFAULT 0;
+
+ALTER TABLE film ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE film ADD COLUMN IF NOT EXISTS updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+DROP INDEX IF EXISTS film_likes_count_idx;
+
 CREATE TABLE IF NOT EXISTS film_genre (
     film_id int REFERENCES film ON DELETE CASCADE,
     genre_id int REFERENCES genre ON DELETE CASCADE,
@@ -42,3 +54,15 @@ CREATE TABLE IF NOT EXISTS film_like (
     user_id int REFERENCES user ON DELETE CASCADE,
     PRIMARY KEY (film_id, user_id)
 );
+
+CREATE TABLE IF NOT EXISTS schema_migration (
+    name varchar PRIMARY KEY,
+    applied_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+UPDATE film AS f
+SET likes_count = (SELECT COUNT(*) FROM film_like AS fl WHERE fl.film_id = f.id)
+WHERE NOT EXISTS (SELECT 1 FROM schema_migration WHERE name = 'film_likes_count_backfill')
+  AND likes_count <> (SELECT COUNT(*) FROM film_like AS fl WHERE fl.film_id = f.id);
+
+MERGE INTO schema_migration (name) KEY (name) VALUES ('film_likes_count_backfill');
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.config.Bulkhead;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class AsyncRequestTimeoutControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @SpyBean(name = "heavyQueryBulkhead")
+    private Bulkhead heavyQueryBulkhead;
+
+    @Test
+    void slowFilmsListShouldTimeOutWithServiceUnavailable() throws Exception {
+        assertTimesOut("/films");
+    }
+
+    @Test
+    void slowUsersListShouldTimeOutWithServiceUnavailable() throws Exception {
+        assertTimesOut("/users");
+    }
+
+    private void assertTimesOut(String path) throws Exception {
+        doReturn(new CompletableFuture<>()).when(heavyQueryBulkhead).submit(any());
+
+        MvcResult result = mockMvc.perform(get(path))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        assertEquals(120_000, asyncContext.getTimeout());
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("ServiceUnavailable"));
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class BulkImportControllerTest {
+    private final static MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void filmChunkWithBadLikeShouldImportRemainingRecords() throws Exception {
+        String response = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"liker@test.ru\",\"login\":\"liker\",\"name\":\"L\"," +
+                                 "\"birthday\":\"2000-01-01\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int userId = objectMapper.readTree(response).get("id").asInt();
+        String body = film("BulkA", "[" + userId + "]") + "\n" +
+                      film("BulkB", "[999999]") + "\n" +
+                      film("BulkC", "[]") + "\n";
+
+        mockMvc.perform(post("/films/bulk").contentType(NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+
+        Set<String> names = filmService.getFilmsList().stream()
+                .map(Film::getName)
+                .collect(Collectors.toSet());
+        assertTrue(names.containsAll(Set.of("BulkA", "BulkC")));
+        assertFalse(names.contains("BulkB"));
+    }
+
+    @Test
+    void userChunkWithDuplicateLoginShouldImportRemainingRecords() throws Exception {
+        String body = user("bulka@test.ru", "bulka") + "\n" +
+                      user("bulkb@test.ru", "bulkb") + "\n" +
+                      user("bulkc@test.ru", "bulka") + "\n";
+
+        mockMvc.perform(post("/users/bulk").contentType(NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+
+        Set<String> emails = userService.getUsersList().stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
+        assertTrue(emails.containsAll(Set.of("bulka@test.ru", "bulkb@test.ru")));
+        assertFalse(emails.contains("bulkc@test.ru"));
+    }
+
+    private static String film(String name, String likes) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Test\",\"releaseDate\":\"2000-01-01\"," +
+               "\"duration\":100,\"mpa\":{\"id\":1},\"likes\":" + likes + ",\"genres\":[1]}";
+    }
+
+    private static String user(String email, String login) {
+        return "{\"email\":\"" + email + "\",\"login\":\"" + login + "\",\"name\":\"Test\"," +
+               "\"birthday\":\"2000-01-01\"}";
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.yandex.practicum.filmorate.config.Bulkhead;
+import ru.yandex.practicum.filmorate.config.BulkheadConfig;
+import ru.yandex.practicum.filmorate.config.BulkheadThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+class BulkheadTest {
+    private MeterRegistry meterRegistry;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        BulkheadConfig config = new BulkheadConfig(meterRegistry,
+                new StaticListableBeanFactory().getBeanProvider(BulkheadThreadFactory.class));
+        bulkhead = config.heavyQueryBulkhead(1, 1);
+    }
+
+    @AfterEach
+    void afterEach() {
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void submitShouldRunTaskOnBulkheadThread() throws Exception {
+        String threadName = bulkhead.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS);
+        assertTrue(threadName.startsWith("heavy-query-"));
+    }
+
+    @Test
+    void saturatedBulkheadShouldRejectAndCountTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = bulkhead.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = bulkhead.submit(() -> 1);
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.submit(() -> 2));
+        assertEquals(1.0, meterRegistry.get("executor.rejected").tag("name", "heavy-query").counter().count());
+        assertEquals(1.0, meterRegistry.get("executor.queued").tag("name", "heavy-query").gauge().value());
+
+        release.countDown();
+        assertTrue(running.get(1, TimeUnit.SECONDS));
+        assertEquals(1, queued.get(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.config.Bulkhead;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class ConditionalRequestsControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @SpyBean(name = "heavyQueryBulkhead")
+    private Bulkhead heavyQueryBulkhead;
+
+    @Test
+    void getFilmsShouldReturnNotModifiedWithoutHeavyBulkhead() throws Exception {
+        String eTag = getETag("/films");
+        clearInvocations(heavyQueryBulkhead);
+
+        mockMvc.perform(get("/films").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified());
+        verify(heavyQueryBulkhead, never()).submit(any());
+    }
+
+    @Test
+    void getPopularFilmsShouldReturnNotModifiedWithoutHeavyBulkhead() throws Exception {
+        String eTag = getETag("/films/popular");
+        clearInvocations(heavyQueryBulkhead);
+
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified());
+        verify(heavyQueryBulkhead, never()).submit(any());
+    }
+
+    @Test
+    void getPopularFilmsETagShouldDependOnQueryParameters() throws Exception {
+        String eTag = getETag("/films/popular?count=10");
+
+        assertNotEquals(eTag, getETag("/films/popular?count=1"));
+        assertNotEquals(eTag, getETag("/films/popular?count=10&genreId=1"));
+        assertEquals(200, getStatus("/films/popular?count=1", eTag));
+        assertEquals(eTag, getETag("/films/popular"));
+    }
+
+    @Test
+    void getFilmsETagShouldDependOnPage() throws Exception {
+        String eTag = getETag("/films?after=0&limit=1");
+
+        assertNotEquals(eTag, getETag("/films?after=1&limit=1"));
+        assertNotEquals(eTag, getETag("/films"));
+        assertEquals(200, getStatus("/films?after=1&limit=1", eTag));
+    }
+
+    @Test
+    void filmWriteShouldChangeCollectionETag() throws Exception {
+        String eTag = getETag("/films");
+
+        createFilm("ETagFilm");
+
+        MvcResult result = mockMvc.perform(get("/films").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertNotEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getFilmByIdShouldReturnNotModifiedUntilFilmChanges() throws Exception {
+        int id = createFilm("ETagFilmById");
+        String path = "/films/" + id;
+        String eTag = getETag(path);
+
+        assertEquals(304, getStatus(path, eTag));
+
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(film(id, "ETagFilmByIdUpdated")))
+                .andExpect(status().isOk());
+
+        assertEquals(200, getStatus(path, eTag));
+    }
+
+    @Test
+    void getUserByIdShouldReturnNotModifiedUntilUserChanges() throws Exception {
+        String response = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user(0, "etaguser")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readTree(response).get("id").asInt();
+        String path = "/users/" + id;
+        String eTag = getETag(path);
+
+        assertEquals(304, getStatus(path, eTag));
+
+        mockMvc.perform(put("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user(id, "etaguserb")))
+                .andExpect(status().isOk());
+
+        assertEquals(200, getStatus(path, eTag));
+    }
+
+    private String getETag(String path) throws Exception {
+        MvcResult result = mockMvc.perform(get(path))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        return result.getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private int getStatus(String path, String eTag) throws Exception {
+        MvcResult result = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getStatus();
+    }
+
+    private int createFilm(String name) throws Exception {
+        String response = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(film(0, name)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asInt();
+    }
+
+    private static String film(int id, String name) {
+        return "{" + (id == 0 ? "" : "\"id\":" + id + ",") + "\"name\":\"" + name + "\"," +
+               "\"description\":\"Test\",\"releaseDate\":\"2000-01-01\",\"duration\":100," +
+               "\"mpa\":{\"id\":1}}";
+    }
+
+    private static String user(int id, String login) {
+        return "{" + (id == 0 ? "" : "\"id\":" + id + ",") + "\"email\":\"" + login + "@test.ru\"," +
+               "\"login\":\"" + login + "\",\"name\":\"Test\",\"birthday\":\"2000-01-01\"}";
+    }
+}
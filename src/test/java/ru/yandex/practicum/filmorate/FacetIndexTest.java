@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.FacetIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class FacetIndexTest {
+    private FacetIndex facetIndex;
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void beforeEach() {
+        facetIndex = new FacetIndex(mock(FilmStorage.class));
+        facetIndex.addFilm(film(1, 2020, 1, Set.of(1, 2)));
+        facetIndex.addFilm(film(2, 2020, 2, Set.of(2)));
+        facetIndex.addFilm(film(3, 2019, 1, Set.of(2, 3)));
+        facetIndex.addFilm(film(4, 2020, 1, Set.of(3)));
+        leaderboard = new PopularityLeaderboard(mock(FilmLikeStorage.class));
+        leaderboard.reload(Map.of(1, 1, 2, 5, 3, 7, 4, 0));
+    }
+
+    @Test
+    void getFilmsShouldReturnNullWithoutFilters() {
+        assertNull(facetIndex.getFilms(null, null, null));
+    }
+
+    @Test
+    void getFilmsShouldIntersectFacets() {
+        assertEquals(bits(1, 2, 3), facetIndex.getFilms(2, null, null));
+        assertEquals(bits(1, 2), facetIndex.getFilms(2, 2020, null));
+        assertEquals(bits(1), facetIndex.getFilms(2, 2020, 1));
+        assertEquals(bits(), facetIndex.getFilms(7, null, null));
+    }
+
+    @Test
+    void getFilmsShouldNotExposeInternalBitSets() {
+        facetIndex.getFilms(2, null, null).clear();
+        assertEquals(bits(1, 2, 3), facetIndex.getFilms(2, null, null));
+    }
+
+    @Test
+    void addFilmShouldReplaceFacetsOnUpdate() {
+        facetIndex.addFilm(film(1, 2021, 2, Set.of(3)));
+        assertEquals(bits(2, 3), facetIndex.getFilms(2, null, null));
+        assertEquals(bits(1, 3, 4), facetIndex.getFilms(3, null, null));
+        assertEquals(bits(1), facetIndex.getFilms(null, 2021, null));
+    }
+
+    @Test
+    void removeFilmShouldClearFacets() {
+        facetIndex.removeFilm(3);
+        assertEquals(bits(1, 2), facetIndex.getFilms(2, null, null));
+        assertEquals(bits(), facetIndex.getFilms(null, 2019, null));
+    }
+
+    @Test
+    void leaderboardShouldRankFilteredFilms() {
+        assertEquals(List.of(3, 2, 1), leaderboard.getTop(10, facetIndex.getFilms(2, null, null)));
+        assertEquals(List.of(2), leaderboard.getTop(1, facetIndex.getFilms(null, 2020, null)));
+    }
+
+    private static Film film(int id, int year, int mpaId, Set<Integer> genres) {
+        return new Film(id, "Film", "Description", LocalDate.of(year, 1, 1), 100,
+                        new Mpa(mpaId), null, genres);
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}
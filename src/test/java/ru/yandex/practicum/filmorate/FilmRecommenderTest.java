@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.FilmRecommender;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+class FilmRecommenderTest {
+    private LikeIndex likeIndex;
+    private FilmRecommender filmRecommender;
+
+    @BeforeEach
+    void beforeEach() {
+        likeIndex = new LikeIndex(mock(FilmLikeStorage.class));
+        likeIndex.reload(Map.of(
+                1, IntSet.of(1, 2, 3),
+                2, IntSet.of(1, 2),
+                3, IntSet.of(2, 3),
+                4, IntSet.of(2),
+                5, IntSet.of(3, 4)));
+        filmRecommender = new FilmRecommender(likeIndex);
+    }
+
+    @Test
+    void reloadShouldIndexLikesInBothDirections() {
+        assertArrayEquals(new int[]{1, 2, 3, 4}, likeIndex.getFilms(2));
+        assertArrayEquals(new int[]{3, 4}, likeIndex.getUsers(5));
+    }
+
+    @Test
+    void recommendShouldSuggestFilmsOfMostSimilarUsers() {
+        assertArrayEquals(new int[]{3, 4, 5}, filmRecommender.recommend(1, 10));
+        assertArrayEquals(new int[]{3}, filmRecommender.recommend(1, 1));
+    }
+
+    @Test
+    void recommendShouldSkipAlreadyLikedFilms() {
+        assertArrayEquals(new int[0], filmRecommender.recommend(9, 10));
+        assertArrayEquals(new int[]{5}, filmRecommender.recommend(2, 10));
+    }
+
+    @Test
+    void addAndDeleteLikeShouldUpdateIndex() {
+        likeIndex.addLike(5, 1);
+        assertArrayEquals(new int[]{1, 2, 5}, likeIndex.getFilms(1));
+        assertArrayEquals(new int[]{3, 4}, filmRecommender.recommend(1, 10));
+        likeIndex.deleteLike(5, 1);
+        assertArrayEquals(new int[]{1, 2}, likeIndex.getFilms(1));
+    }
+
+    @Test
+    void removeFilmShouldDropItsLikes() {
+        likeIndex.addFilm(6, List.of(4));
+        assertArrayEquals(new int[]{5, 6}, likeIndex.getFilms(4));
+        likeIndex.removeFilm(6);
+        assertArrayEquals(new int[]{5}, likeIndex.getFilms(4));
+        assertArrayEquals(new int[0], likeIndex.getUsers(6));
+    }
+}
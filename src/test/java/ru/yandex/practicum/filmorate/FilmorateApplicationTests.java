@@ -7,19 +7,35 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.storage.db.DatabaseFIlmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.db.DatabaseFilmLikeStorage;
 import ru.yandex.practicum.filmorate.storage.db.DatabaseFilmStorage;
 import ru.yandex.practicum.filmorate.storage.db.DatabaseFriendshipStorage;
 import ru.yandex.practicum.filmorate.storage.db.DatabaseUserStorage;
+import ru.yandex.practicum.filmorate.storage.db.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @SpringBootTest
@@ -30,6 +46,11 @@ class FilmorateApplicationTests {
     private final DatabaseFilmStorage filmStorage;
     private final DatabaseFriendshipStorage friendshipStorage;
     private final DatabaseFilmLikeStorage filmLikeStorage;
+    private final DatabaseFIlmGenreStorage filmGenreStorage;
+    private final ReferenceDataCache referenceDataCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final PlatformTransactionManager transactionManager;
     private final Mpa mpa = new Mpa(1, "G");
     private final HashSet<Integer> likes = new HashSet<>();
     private final HashSet<Integer> genres = new HashSet<>(Set.of(1, 2));
@@ -55,81 +76,53 @@ class FilmorateApplicationTests {
     }
 
     @Test
-    void getFriendsListByIdUnacceptedFriendship() {
-        friendshipStorage.addFriend(1, 2);
-
-        List<User> users1 = userStorage.getFriendsListById(1);
-        List<User> users2 = userStorage.getFriendsListById(2);
-
-        assertNotNull(users1);
-        assertNotNull(users2);
-        assertEquals(1, users1.size());
-        assertEquals(0, users2.size());
-
-        friendshipStorage.deleteFriend(1, 2);
-    }
-
-    @Test
-    void getFriendsListByIdAcceptedFriendship() {
+    void getFriendIds() {
+        friendshipStorage.addFriend(1, 3);
         friendshipStorage.addFriend(1, 2);
-        friendshipStorage.addFriend(2, 1);
+        friendshipStorage.addFriend(2, 3);
 
-        List<User> users1 = userStorage.getFriendsListById(1);
-        List<User> users2 = userStorage.getFriendsListById(2);
+        Map<Integer, IntSet> friendIds = friendshipStorage.getFriendIds();
 
-        assertNotNull(users1);
-        assertNotNull(users2);
-        assertEquals(1, users1.size());
-        assertEquals(1, users2.size());
+        assertEquals(Map.of(1, Set.of(2, 3), 2, Set.of(3)), friendIds);
 
+        friendshipStorage.deleteFriend(1, 3);
         friendshipStorage.deleteFriend(1, 2);
-        friendshipStorage.deleteFriend(2, 1);
+        friendshipStorage.deleteFriend(2, 3);
     }
 
     @Test
-    void getFriendsListByIdEmpty() {
-        List<User> users = userStorage.getFriendsListById(1);
+    void getUsersByIds() {
+        List<User> users = userStorage.getUsersByIds(List.of(3, 99, 1));
 
-        assertNotNull(users);
-        assertEquals(0, users.size());
+        assertEquals(2, users.size());
+        assertEquals(3, users.get(0).getId());
+        assertEquals(1, users.get(1).getId());
     }
 
     @Test
-    void getCommonFriends() {
+    void getUsers() {
+        User user1 = new User(1, "u1@test.ru", "u1", "Test", LocalDate.of(2000, 1, 1));
+        User user2 = new User(2, "u2@test.ru", "u2", "Test", LocalDate.of(2000, 1, 1));
         User user3 = new User(3, "u3@test.ru", "u3", "Test", LocalDate.of(2000, 1, 1));
-        List<User> usersExpected = List.of(user3);
-        friendshipStorage.addFriend(1, 3);
-        friendshipStorage.addFriend(2, 3);
+        List<User> usersExpected = List.of(user1, user2, user3);
 
-        List<User> users = userStorage.getCommonFriends(1, 2);
+        List<User> users = userStorage.getUsers();
 
         assertNotNull(users);
-        assertEquals(1, users.size());
+        assertEquals(3, users.size());
         assertEquals(usersExpected, users);
-
-        friendshipStorage.deleteFriend(1, 3);
-        friendshipStorage.deleteFriend(2, 3);
     }
 
     @Test
-    void getCommonFriendsEmpty() {
-        List<User> users = userStorage.getCommonFriends(1, 2);
-
-        assertNotNull(users);
-        assertEquals(0, users.size());
-    }
-
-    @Test
-    void getUsers() {
-        User user1 = new User(1, "u1@test.ru", "u1", "Test", LocalDate.of(2000, 1, 1));
+    void getUsersPage() {
         User user2 = new User(2, "u2@test.ru", "u2", "Test", LocalDate.of(2000, 1, 1));
         User user3 = new User(3, "u3@test.ru", "u3", "Test", LocalDate.of(2000, 1, 1));
-        List<User> usersExpected = List.of(user1, user2, user3);
+        List<User> usersExpected = List.of(user2, user3);
 
-        List<User> users = userStorage.getUsers();
+        List<User> users = userStorage.getUsersPage(1, 2);
 
         assertNotNull(users);
-        assertEquals(3, users.size());
+        assertEquals(2, users.size());
         assertEquals(usersExpected, users);
     }
 
@@ -143,11 +136,27 @@ class FilmorateApplicationTests {
         assertEquals(userExpected, user);
     }
 
+    @Test
+    void usersExist() {
+        assertTrue(userStorage.existsById(1));
+        assertFalse(userStorage.existsById(-1));
+        assertTrue(userStorage.existsAll(List.of(1, 2, 2)));
+        assertFalse(userStorage.existsAll(List.of(1, -1)));
+    }
+
     @Test
     void getUserByIdIncorrectId() {
         assertThrows(UserNotFoundException.class, () -> userStorage.getUserById(-1));
     }
 
+    @Test
+    void findUserById() {
+        User userExpected = new User(1, "u1@test.ru", "u1", "Test", LocalDate.of(2000, 1, 1));
+
+        assertEquals(Optional.of(userExpected), userStorage.findUserById(1));
+        assertEquals(Optional.empty(), userStorage.findUserById(-1));
+    }
+
     @Test
     void addUser() {
         User user4 = new User(0, "u4@test.ru", "u4", "Test", LocalDate.of(2000, 1, 1));
@@ -171,6 +180,7 @@ class FilmorateApplicationTests {
 
         assertNotNull(user);
         assertEquals(userUpd, user);
+        assertEquals(1, user.getVersion());
 
         userStorage.deleteUserById(5);
     }
@@ -186,59 +196,137 @@ class FilmorateApplicationTests {
     }
 
     @Test
-    void getPopularFilms() {
-        HashSet<Integer> likes2 = new HashSet<>(Set.of(1, 2, 3));
-        HashSet<Integer> likes3 = new HashSet<>(Set.of(1, 2));
-        Film film1 = new Film(1, "F1", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes, genres);
-        Film film2 = new Film(2, "F2", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes2, genres);
-        Film film3 = new Film(3, "F3", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes3, genres);
-        List<Film> filmsExpected = List.of(film2, film3, film1);
-        filmLikeStorage.addLike(2, 1);
-        filmLikeStorage.addLike(2, 2);
-        filmLikeStorage.addLike(2, 3);
-        filmLikeStorage.addLike(3, 1);
-        filmLikeStorage.addLike(3, 2);
+    void reconcileLikesCountNoDrift() {
+        filmLikeStorage.addLike(1, 1);
+        filmLikeStorage.addLike(1, 2);
+        filmLikeStorage.deleteLike(1, 2);
 
+        int repaired = filmLikeStorage.reconcileLikesCount();
 
-        List<Film> films = filmStorage.getPopularFilms(5);
+        assertEquals(0, repaired);
 
-        assertNotNull(films);
-        assertEquals(3, films.size());
-        assertEquals(filmsExpected, films);
+        filmLikeStorage.deleteLike(1, 1);
+    }
+
+    @Test
+    void reconcileLikesCountRepairsDrift() {
+        filmLikeStorage.addLike(2, 1);
+        jdbcTemplate.update("UPDATE film SET likes_count = 0 WHERE id = 2;");
+
+        int repaired = filmLikeStorage.reconcileLikesCount();
+
+        assertEquals(1, repaired);
+        assertEquals(1, getLikesCount(2));
 
         filmLikeStorage.deleteLike(2, 1);
-        filmLikeStorage.deleteLike(2, 2);
-        filmLikeStorage.deleteLike(2, 3);
-        filmLikeStorage.deleteLike(3, 1);
-        filmLikeStorage.deleteLike(3, 2);
     }
 
     @Test
-    void getPopularFilmsCount1() {
-        HashSet<Integer> likes2 = new HashSet<>(Set.of(1, 2));
-        Film film2 = new Film(2, "F2", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes2, genres);
-        List<Film> filmsExpected = List.of(film2);
+    void schemaBackfillsLikesCount() {
         filmLikeStorage.addLike(2, 1);
         filmLikeStorage.addLike(2, 2);
-        filmLikeStorage.addLike(3, 1);
+        jdbcTemplate.update("UPDATE film SET likes_count = 0 WHERE id = 2;");
+        jdbcTemplate.update("DELETE FROM schema_migration WHERE name = 'film_likes_count_backfill';");
 
-        List<Film> films = filmStorage.getPopularFilms(1);
+        runSchemaScript();
 
-        assertNotNull(films);
-        assertEquals(1, films.size());
-        assertEquals(filmsExpected, films);
+        assertEquals(2, getLikesCount(2));
+
+        jdbcTemplate.update("UPDATE film SET likes_count = 0 WHERE id = 2;");
+
+        runSchemaScript();
 
+        assertEquals(0, getLikesCount(2));
+
+        filmLikeStorage.reconcileLikesCount();
         filmLikeStorage.deleteLike(2, 1);
         filmLikeStorage.deleteLike(2, 2);
-        filmLikeStorage.deleteLike(3, 1);
     }
 
     @Test
-    void getPopularFilmsNoLikes() {
-        List<Film> films = filmStorage.getPopularFilms(5);
+    void getLikesCountReadsDenormalizedCounter() {
+        filmLikeStorage.addLike(2, 1);
+        jdbcTemplate.update("UPDATE film SET likes_count = 5 WHERE id = 2;");
 
-        assertNotNull(films);
-        assertEquals(3, films.size());
+        assertEquals(5, filmLikeStorage.getLikesCount().get(2));
+
+        filmLikeStorage.reconcileLikesCount();
+        filmLikeStorage.deleteLike(2, 1);
+        assertEquals(0, filmLikeStorage.getLikesCount().get(2));
+    }
+
+    @Test
+    void addLikesForFilm() {
+        long version = filmStorage.getFilmById(3).getVersion();
+
+        filmLikeStorage.addLikes(3, List.of(1, 2));
+
+        Film film = filmStorage.getFilmById(3);
+        assertEquals(Set.of(1, 2), film.getLikes());
+        assertEquals(2, getLikesCount(3));
+        assertEquals(version + 1, film.getVersion());
+
+        filmLikeStorage.deleteLikes(Map.of(3, List.of(1, 2)));
+        assertEquals(0, getLikesCount(3));
+    }
+
+    @Test
+    void addGenresForFilm() {
+        long version = filmStorage.getFilmById(3).getVersion();
+
+        filmGenreStorage.addGenres(3, List.of(5, 6));
+
+        assertEquals(Set.of(1, 2, 5, 6), new HashSet<>(filmGenreStorage.getGenresByFilmId(3)));
+        assertEquals(version + 1, filmStorage.getFilmById(3).getVersion());
+
+        filmGenreStorage.replaceGenres(3, List.of(1, 2));
+    }
+
+    @Test
+    void replaceGenresAddOnly() {
+        assertReplaceGenres(List.of(1, 2, 3));
+    }
+
+    @Test
+    void replaceGenresRemoveOnly() {
+        assertReplaceGenres(List.of(2));
+    }
+
+    @Test
+    void replaceGenresMixed() {
+        assertReplaceGenres(List.of(2, 4, 5));
+    }
+
+    @Test
+    void replaceGenresUnchanged() {
+        assertReplaceGenres(List.of(2, 1));
+    }
+
+    @Test
+    void deleteLikesBatch() {
+        filmLikeStorage.addLikes(Map.of(1, List.of(1, 2), 2, List.of(1)));
+
+        filmLikeStorage.deleteLikes(Map.of(1, List.of(2, 3), 2, List.of(1)));
+
+        assertEquals(Map.of(1, Set.of(1)), filmLikeStorage.getLikes());
+        assertEquals(0, filmLikeStorage.reconcileLikesCount());
+
+        filmLikeStorage.deleteLike(1, 1);
+    }
+
+    @Test
+    void getLikes() {
+        filmLikeStorage.addLike(1, 2);
+        filmLikeStorage.addLike(1, 1);
+        filmLikeStorage.addLike(2, 1);
+
+        Map<Integer, IntSet> likes = filmLikeStorage.getLikes();
+
+        assertEquals(Map.of(1, Set.of(1, 2), 2, Set.of(1)), likes);
+
+        filmLikeStorage.deleteLike(1, 2);
+        filmLikeStorage.deleteLike(1, 1);
+        filmLikeStorage.deleteLike(2, 1);
     }
 
     @Test
@@ -255,6 +343,40 @@ class FilmorateApplicationTests {
         assertEquals(filmsExpected, films);
     }
 
+    @Test
+    void getFilmsPage() {
+        Film film2 = new Film(2, "F2", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes, genres);
+        List<Film> filmsExpected = List.of(film2);
+
+        List<Film> films = filmStorage.getFilmsPage(1, 1);
+
+        assertNotNull(films);
+        assertEquals(1, films.size());
+        assertEquals(filmsExpected, films);
+    }
+
+    @Test
+    void streamFilms() {
+        List<Film> films = new ArrayList<>();
+
+        filmStorage.streamFilms(films::add);
+
+        assertEquals(filmStorage.getFilms(), films);
+    }
+
+    @Test
+    void getFilmsByIds() {
+        Film film1 = new Film(1, "F1", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes, genres);
+        Film film3 = new Film(3, "F3", "Test", LocalDate.of(2000, 1, 1), 100, mpa, likes, genres);
+        List<Film> filmsExpected = List.of(film3, film1);
+
+        List<Film> films = filmStorage.getFilmsByIds(List.of(3, -1, 1));
+
+        assertNotNull(films);
+        assertEquals(2, films.size());
+        assertEquals(filmsExpected, films);
+    }
+
     @Test
     void getFilmById() {
         Film filmExpected = new Film(1, "F1", "Test", LocalDate.of(2000, 1, 1), 100,
@@ -266,11 +388,140 @@ class FilmorateApplicationTests {
         assertEquals(filmExpected, film);
     }
 
+    @Test
+    void filmsExist() {
+        assertTrue(filmStorage.existsById(1));
+        assertFalse(filmStorage.existsById(-1));
+        assertTrue(filmStorage.existsAll(List.of(1, 3)));
+        assertFalse(filmStorage.existsAll(List.of(3, -1)));
+    }
+
+    @Test
+    void likesShouldBumpFilmVersion() {
+        Film film = filmStorage.getFilmById(1);
+
+        filmLikeStorage.addLike(1, 2);
+        filmLikeStorage.deleteLike(1, 2);
+        Film updated = filmStorage.getFilmById(1);
+
+        assertEquals(film, updated);
+        assertEquals(film.getVersion() + 2, updated.getVersion());
+        assertFalse(updated.getUpdatedAt().isBefore(film.getUpdatedAt()));
+    }
+
+    @Test
+    void getFilmByIdShouldBeCached() {
+        Film film = filmStorage.getFilmById(2);
+
+        assertNotNull(cacheManager.getCache("films").get(2));
+        assertEquals(film, filmStorage.getFilmById(2));
+    }
+
+    @Test
+    void cachedFilmShouldNotBeSharedWithCallers() {
+        Film film = filmStorage.getFilmById(2);
+        film.getLikes().add(3);
+        film.getGenres().add(6);
+
+        Film cached = filmStorage.getFilmById(2);
+        assertNotSame(film, cached);
+        assertEquals(Set.of(), cached.getLikes());
+        assertFalse(cached.getGenres().contains(6));
+    }
+
+    @Test
+    void cachedUserShouldNotBeSharedWithCallers() {
+        User user = userStorage.getUserById(2);
+        user.getFriends().add(3);
+
+        assertFalse(userStorage.getUserById(2).getFriends().contains(3));
+    }
+
+    @Test
+    void addLikeShouldEvictCachedFilm() {
+        filmStorage.getFilmById(2);
+
+        filmLikeStorage.addLike(2, 3);
+
+        assertNull(cacheManager.getCache("films").get(2));
+        assertEquals(Set.of(3), filmStorage.getFilmById(2).getLikes());
+
+        filmLikeStorage.deleteLike(2, 3);
+        assertEquals(Set.of(), filmStorage.getFilmById(2).getLikes());
+    }
+
+    @Test
+    void updateFilmShouldEvictCachedFilm() {
+        Film film = filmStorage.getFilmById(2);
+
+        filmStorage.updateFilm(film);
+
+        Film updated = filmStorage.getFilmById(2);
+        assertTrue(updated.getVersion() > film.getVersion());
+    }
+
+    @Test
+    void updateUserShouldEvictCachedUser() {
+        User user = userStorage.getUserById(2);
+        assertNotNull(cacheManager.getCache("users").get(2));
+
+        userStorage.updateUser(user);
+
+        User updated = userStorage.getUserById(2);
+        assertEquals(user.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void cacheEvictionShouldWaitForCommit() {
+        filmStorage.getFilmById(2);
+        Cache films = cacheManager.getCache("films");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmLikeStorage.addLike(2, 3);
+            assertNotNull(films.get(2));
+        });
+
+        assertNull(films.get(2));
+        assertEquals(Set.of(3), filmStorage.getFilmById(2).getLikes());
+
+        filmLikeStorage.deleteLike(2, 3);
+    }
+
+    @Test
+    void batchLikeWritesShouldEvictOnlyTheirFilms() {
+        filmStorage.getFilmById(1);
+        filmStorage.getFilmById(2);
+        Cache films = cacheManager.getCache("films");
+
+        filmLikeStorage.addLikes(Map.of(2, List.of(3)));
+
+        assertNotNull(films.get(1));
+        assertNull(films.get(2));
+        assertEquals(Set.of(3), filmStorage.getFilmById(2).getLikes());
+
+        filmLikeStorage.deleteLikes(Map.of(2, List.of(3)));
+
+        assertNotNull(films.get(1));
+        assertNull(films.get(2));
+        assertEquals(Set.of(), filmStorage.getFilmById(2).getLikes());
+    }
+
     @Test
     void getFilmByIdIncorrectId() {
         assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilmById(-1));
     }
 
+    @Test
+    void findFilmById() {
+        Film filmExpected = new Film(1, "F1", "Test", LocalDate.of(2000, 1, 1), 100,
+                mpa, likes, genres);
+
+        assertEquals(Optional.of(filmExpected), filmStorage.findFilmById(1));
+        assertEquals(Optional.empty(), filmStorage.findFilmById(-1));
+        assertEquals("There is no film with id -1",
+                assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilmById(-1)).getMessage());
+    }
+
     @Test
     void addFilm() {
         Film film4 = new Film(0, "F4", "Test", LocalDate.of(2000, 1, 1), 100,
@@ -310,4 +561,45 @@ class FilmorateApplicationTests {
 
         assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilmById(6));
     }
+
+    @Test
+    void getMpaFromReferenceDataCache() {
+        assertEquals(mpa, referenceDataCache.getMpa(1));
+        assertEquals("There is no MPA with id -1",
+                assertThrows(MpaNotFoundException.class, () -> referenceDataCache.getMpa(-1)).getMessage());
+    }
+
+    @Test
+    void checkGenresIncorrectId() {
+        assertThrows(GenreNotFoundException.class,
+                     () -> referenceDataCache.checkGenres(List.of(1, -1)));
+    }
+
+    private void runSchemaScript() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            return null;
+        });
+    }
+
+    private int getLikesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM film WHERE id = ?;",
+                                           Integer.class, filmId);
+    }
+
+    private void assertReplaceGenres(List<Integer> genreIds) {
+        filmLikeStorage.addLike(3, 1);
+        long version = filmStorage.getFilmById(3).getVersion();
+
+        filmGenreStorage.replaceGenres(3, genreIds);
+
+        Film film = filmStorage.getFilmById(3);
+        assertEquals(new HashSet<>(genreIds), new HashSet<>(filmGenreStorage.getGenresByFilmId(3)));
+        assertEquals(new HashSet<>(genreIds), film.getGenres());
+        assertEquals(version + 1, film.getVersion());
+        assertEquals(1, getLikesCount(3));
+
+        filmGenreStorage.replaceGenres(3, List.of(1, 2));
+        filmLikeStorage.deleteLike(3, 1);
+    }
 }
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.FriendIndex;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+class FriendIndexTest {
+    private FriendIndex friendIndex;
+
+    @BeforeEach
+    void beforeEach() {
+        friendIndex = new FriendIndex(mock(FriendshipStorage.class));
+        friendIndex.reload(Map.of(1, IntSet.of(5, 2, 3), 2, IntSet.of(3, 4, 5)));
+    }
+
+    @Test
+    void getFriendsShouldReturnSortedIds() {
+        assertArrayEquals(new int[]{2, 3, 5}, friendIndex.getFriends(1));
+        assertArrayEquals(new int[0], friendIndex.getFriends(9));
+    }
+
+    @Test
+    void getCommonFriendsShouldIntersectFriendLists() {
+        assertArrayEquals(new int[]{3, 5}, friendIndex.getCommonFriends(1, 2));
+        assertArrayEquals(new int[0], friendIndex.getCommonFriends(1, 9));
+    }
+
+    @Test
+    void addFriendShouldKeepIdsSorted() {
+        friendIndex.addFriend(1, 4);
+        friendIndex.addFriend(1, 4);
+        friendIndex.addFriend(7, 1);
+        assertArrayEquals(new int[]{2, 3, 4, 5}, friendIndex.getFriends(1));
+        assertArrayEquals(new int[]{1}, friendIndex.getFriends(7));
+    }
+
+    @Test
+    void deleteFriendShouldRemoveId() {
+        friendIndex.deleteFriend(1, 3);
+        friendIndex.deleteFriend(1, 8);
+        assertArrayEquals(new int[]{2, 5}, friendIndex.getFriends(1));
+        assertArrayEquals(new int[]{5}, friendIndex.getCommonFriends(1, 2));
+    }
+
+    @Test
+    void friendArraysShouldNotChangeAfterUpdate() {
+        int[] friends = friendIndex.getFriends(1);
+        friendIndex.addFriend(1, 4);
+        assertArrayEquals(new int[]{2, 3, 5}, friends);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.FriendIndex;
+import ru.yandex.practicum.filmorate.index.FriendRecommender;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class FriendRecommenderTest {
+    private FriendIndex friendIndex;
+    private FriendRecommender friendRecommender;
+
+    @BeforeEach
+    void beforeEach() {
+        friendIndex = new FriendIndex(mock(FriendshipStorage.class));
+        friendIndex.reload(Map.of(
+                1, IntSet.of(2, 3, 4),
+                2, IntSet.of(1, 5, 6),
+                3, IntSet.of(5, 6, 7),
+                4, IntSet.of(5, 3)));
+        friendRecommender = new FriendRecommender(friendIndex);
+    }
+
+    @Test
+    void recommendShouldRankByMutualFriends() {
+        assertArrayEquals(new int[]{5, 6, 7}, friendRecommender.recommend(1, 10));
+    }
+
+    @Test
+    void recommendShouldBeLimited() {
+        assertArrayEquals(new int[]{5}, friendRecommender.recommend(1, 1));
+    }
+
+    @Test
+    void recommendShouldBeEmptyWithoutFriends() {
+        assertArrayEquals(new int[0], friendRecommender.recommend(9, 10));
+        assertArrayEquals(new int[0], friendRecommender.recommend(5, 10));
+    }
+
+    @Test
+    void recommendShouldSplitLargeIdRanges() {
+        Map<Integer, IntSet> friendIds = new HashMap<>();
+        friendIds.put(1, IntSet.of(2, 3));
+        friendIds.put(2, IntSet.of(10, 50_000, 1_000_000));
+        friendIds.put(3, IntSet.of(50_000, 1_000_000, 2_000_000));
+        friendIndex.reload(friendIds);
+        assertArrayEquals(new int[]{50_000, 1_000_000, 10, 2_000_000}, friendRecommender.recommend(1, 10));
+    }
+}
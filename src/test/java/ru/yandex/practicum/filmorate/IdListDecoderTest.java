@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.IdListDecoder;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdListDecoderTest {
+    @Test
+    void decodeShouldParseCommaSeparatedIds() {
+        IntSet ids = new IntSet();
+        IdListDecoder.decode("3,1,20,1", ids);
+        assertArrayEquals(new int[]{1, 3, 20}, ids.toIntArray());
+    }
+
+    @Test
+    void decodeShouldAcceptSpacesAndSigns() {
+        IntSet ids = new IntSet();
+        IdListDecoder.decode("7, -2, 2147483647", ids);
+        assertArrayEquals(new int[]{-2, 7, 2147483647}, ids.toIntArray());
+    }
+
+    @Test
+    void decodeShouldAcceptIntBounds() {
+        IntSet ids = new IntSet();
+        IdListDecoder.decode("-2147483648,2147483647,-0,00000000000000000001", ids);
+        assertArrayEquals(new int[]{-2147483648, 0, 1, 2147483647}, ids.toIntArray());
+    }
+
+    @Test
+    void decodeShouldIgnoreNull() {
+        IntSet ids = IntSet.of(1);
+        IdListDecoder.decode(null, ids);
+        assertArrayEquals(new int[]{1}, ids.toIntArray());
+    }
+
+    @Test
+    void decodeShouldRejectMalformedInput() {
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("1,,2", new IntSet()));
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("1,a", new IntSet()));
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("", new IntSet()));
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("2147483648", new IntSet()));
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("9999999999", new IntSet()));
+        assertThrows(NumberFormatException.class, () -> IdListDecoder.decode("-2147483649", new IntSet()));
+        assertThrows(NumberFormatException.class,
+                     () -> IdListDecoder.decode("99999999999999999999", new IntSet()));
+    }
+}
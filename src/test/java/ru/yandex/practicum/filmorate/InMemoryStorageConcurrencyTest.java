@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.exception.EmailAlreadyTakenException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class InMemoryStorageConcurrencyTest {
+    private final static int THREADS = 8;
+    private final static int USERS = 200;
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryFilmLikeStorage filmLikeStorage;
+    private InMemoryFriendshipStorage friendshipStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage();
+        filmLikeStorage = new InMemoryFilmLikeStorage(filmStorage, userStorage);
+        friendshipStorage = new InMemoryFriendshipStorage(userStorage);
+    }
+
+    @Test
+    void concurrentAddUserShouldAssignUniqueIds() throws Exception {
+        List<Integer> ids = runConcurrently(USERS, i -> userStorage.addUser(user(i)).getId());
+        assertEquals(USERS, Set.copyOf(ids).size());
+        assertEquals(USERS, userStorage.getUsers().size());
+    }
+
+    @Test
+    void concurrentAddUserWithSameEmailShouldAcceptOnlyOne() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(USERS, i -> {
+            User user = user(i);
+            user.setEmail("same@mail.ru");
+            try {
+                userStorage.addUser(user);
+            } catch (EmailAlreadyTakenException e) {
+                rejected.incrementAndGet();
+            }
+            return i;
+        });
+        assertEquals(USERS - 1, rejected.get());
+        assertEquals(1, userStorage.getUsers().size());
+    }
+
+    @Test
+    void concurrentAddLikeShouldNotLoseUpdates() throws Exception {
+        List<Integer> userIds = runConcurrently(USERS, i -> userStorage.addUser(user(i)).getId());
+        int filmId = filmStorage.addFilm(film()).getId();
+        runConcurrently(USERS, i -> {
+            filmLikeStorage.addLike(filmId, userIds.get(i));
+            return filmStorage.getFilms().size();
+        });
+        assertEquals(USERS, filmStorage.getFilmById(filmId).getLikes().size());
+        assertEquals(USERS, filmLikeStorage.getLikesCount().get(filmId));
+    }
+
+    @Test
+    void concurrentAddFriendShouldNotLoseUpdates() throws Exception {
+        List<Integer> userIds = runConcurrently(USERS, i -> userStorage.addUser(user(i)).getId());
+        int id = userIds.get(0);
+        runConcurrently(USERS - 1, i -> {
+            friendshipStorage.addFriend(id, userIds.get(i + 1));
+            return friendshipStorage.getFriendIds().get(id).size();
+        });
+        assertEquals(USERS - 1, friendshipStorage.getFriendIds().get(id).size());
+    }
+
+    @Test
+    void getFilmByIdShouldReturnSnapshot() {
+        User user = userStorage.addUser(user(0));
+        Film film = filmStorage.addFilm(film());
+        filmLikeStorage.addLike(film.getId(), user.getId());
+        assertTrue(film.getLikes().isEmpty());
+        assertEquals(Set.of(user.getId()), filmStorage.getFilmById(film.getId()).getLikes());
+    }
+
+    private <T> List<T> runConcurrently(int tasks, TaskFunction<T> function) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<T>> callables = IntStream.range(0, tasks)
+                    .mapToObj(i -> (Callable<T>) () -> function.apply(i))
+                    .collect(Collectors.toList());
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(callables)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static User user(int index) {
+        return new User(0, "user" + index + "@mail.ru", "login" + (char) ('a' + index % 26) + index / 26,
+                "User", LocalDate.of(1990, 1, 1));
+    }
+
+    private static Film film() {
+        return new Film(0, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+                new Mpa(1), null, null);
+    }
+
+    private interface TaskFunction<T> {
+        T apply(int index) throws Exception;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.Iterator;
+
+class IntSetTest {
+    @Test
+    void addShouldKeepValuesSortedAndUnique() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(3));
+        assertFalse(set.add(3));
+        assertArrayEquals(new int[]{1, 3, 5}, set.toIntArray());
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void removeShouldDeleteOnlyExistingValues() {
+        IntSet set = IntSet.of(1, 2, 3);
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2));
+        assertFalse(set.remove((Object) "2"));
+        assertArrayEquals(new int[]{1, 3}, set.toIntArray());
+    }
+
+    @Test
+    void ofShouldSortAndRemoveDuplicates() {
+        assertArrayEquals(new int[]{1, 2, 7}, IntSet.of(7, 1, 2, 7, 1).toIntArray());
+    }
+
+    @Test
+    void shouldBeEqualToOtherSetsWithSameValues() {
+        IntSet set = new IntSet(List.of(3, 1, 2));
+        assertEquals(Set.of(1, 2, 3), set);
+        assertEquals(set, Set.of(1, 2, 3));
+        assertEquals(Set.of(1, 2, 3).hashCode(), set.hashCode());
+        assertTrue(set.contains((Object) 2));
+        assertFalse(set.contains((Object) 4));
+    }
+
+    @Test
+    void retainAllShouldIntersectSets() {
+        IntSet set = IntSet.of(1, 2, 3, 5, 8);
+        assertTrue(set.retainAll(IntSet.of(2, 3, 4, 8)));
+        assertArrayEquals(new int[]{2, 3, 8}, set.toIntArray());
+        assertFalse(set.retainAll(Set.of(2, 3, 8)));
+    }
+
+    @Test
+    void iteratorRemoveShouldDeleteCurrentValue() {
+        IntSet set = IntSet.of(1, 2, 3);
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 1) {
+                iterator.remove();
+            }
+        }
+        assertArrayEquals(new int[]{2}, set.toIntArray());
+    }
+
+    @Test
+    void copyShouldNotShareState() {
+        IntSet set = IntSet.of(1, 2);
+        IntSet copy = new IntSet(set);
+        copy.add(3);
+        assertEquals(2, set.size());
+        assertEquals(3, copy.size());
+    }
+}
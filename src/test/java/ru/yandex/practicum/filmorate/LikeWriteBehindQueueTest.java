@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import ru.yandex.practicum.filmorate.index.LikeIndex;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.util.ResourceVersion;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+class LikeWriteBehindQueueTest {
+    private FilmLikeStorage filmLikeStorage;
+    private LikeIndex likeIndex;
+    private PopularityLeaderboard popularityLeaderboard;
+    private ResourceVersion filmsVersion;
+    private LikeWriteBehindQueue queue;
+
+    @BeforeEach
+    void beforeEach() {
+        filmLikeStorage = mock(FilmLikeStorage.class);
+        likeIndex = new LikeIndex(filmLikeStorage);
+        popularityLeaderboard = new PopularityLeaderboard(filmLikeStorage);
+        filmsVersion = new ResourceVersion("films");
+        queue = new LikeWriteBehindQueue(filmLikeStorage, likeIndex, popularityLeaderboard, filmsVersion,
+                                         true, 100, 10, 10);
+    }
+
+    @Test
+    void addLikeShouldUpdateIndexImmediatelyAndWriteOnFlush() {
+        assertTrue(queue.addLike(1, 2));
+        assertArrayEquals(new int[]{2}, likeIndex.getUsers(1));
+        assertEquals(1, popularityLeaderboard.getLikesCount(1));
+        verifyNoInteractions(filmLikeStorage);
+        String eTag = filmsVersion.getETag("");
+        queue.flush();
+        verify(filmLikeStorage).addLikes(Map.of(1, List.of(2)));
+        assertNotEquals(eTag, filmsVersion.getETag(""));
+        verify(filmLikeStorage, never()).deleteLikes(anyMap());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    void repeatedLikeShouldNotBeQueued() {
+        assertTrue(queue.addLike(1, 2));
+        assertFalse(queue.addLike(1, 2));
+        assertFalse(queue.deleteLike(1, 3));
+        assertEquals(1, queue.getPendingCount());
+    }
+
+    @Test
+    void addAndDeleteOfSameLikeShouldCancelOut() {
+        queue.addLike(1, 2);
+        queue.deleteLike(1, 2);
+        queue.addLike(1, 3);
+        queue.addLike(2, 3);
+        queue.flush();
+        verify(filmLikeStorage).addLikes(Map.of(1, List.of(3), 2, List.of(3)));
+        verify(filmLikeStorage, never()).deleteLikes(anyMap());
+    }
+
+    @Test
+    void flushShouldSplitQueueIntoBatches() {
+        for (int userId = 1; userId <= 25; userId++) {
+            queue.addLike(1, userId);
+        }
+        queue.flush();
+        verify(filmLikeStorage, times(3)).addLikes(anyMap());
+    }
+
+    @Test
+    void failedBatchShouldBeRetriedOneByOne() {
+        doThrow(new DataIntegrityViolationException("no film")).when(filmLikeStorage).addLikes(anyMap());
+        queue.addLike(1, 2);
+        queue.addLike(3, 2);
+        queue.flush();
+        verify(filmLikeStorage).addLike(1, 2);
+        verify(filmLikeStorage).addLike(3, 2);
+    }
+
+    @Test
+    void droppedLikeShouldBeRolledBackInMemory() {
+        doThrow(new DataIntegrityViolationException("no film")).when(filmLikeStorage).addLikes(anyMap());
+        doThrow(new DataIntegrityViolationException("no film")).when(filmLikeStorage).addLike(1, 2);
+        queue.addLike(1, 2);
+        queue.addLike(1, 3);
+        queue.flush();
+        assertArrayEquals(new int[]{3}, likeIndex.getUsers(1));
+        assertEquals(1, popularityLeaderboard.getLikesCount(1));
+    }
+
+    @Test
+    void droppedDeleteShouldBeRolledBackInMemory() {
+        likeIndex.addLike(1, 2);
+        popularityLeaderboard.addFilm(1, 1);
+        doThrow(new DataIntegrityViolationException("lock")).when(filmLikeStorage).deleteLikes(anyMap());
+        doThrow(new DataIntegrityViolationException("lock")).when(filmLikeStorage).deleteLike(1, 2);
+        queue.deleteLike(1, 2);
+        assertEquals(0, popularityLeaderboard.getLikesCount(1));
+        queue.flush();
+        assertArrayEquals(new int[]{2}, likeIndex.getUsers(1));
+        assertEquals(1, popularityLeaderboard.getLikesCount(1));
+    }
+
+    @Test
+    void alreadyStoredLikeShouldNotBeRolledBack() {
+        doThrow(new DataIntegrityViolationException("batch")).when(filmLikeStorage).addLikes(anyMap());
+        doThrow(new DuplicateKeyException("stored")).when(filmLikeStorage).addLike(1, 2);
+        queue.addLike(1, 2);
+        queue.flush();
+        assertArrayEquals(new int[]{2}, likeIndex.getUsers(1));
+        assertEquals(1, popularityLeaderboard.getLikesCount(1));
+    }
+
+    @Test
+    void backgroundFlusherShouldWritePendingLikes() throws InterruptedException {
+        queue.start();
+        try {
+            queue.addLike(1, 2);
+            verify(filmLikeStorage, timeout(1000)).addLikes(Map.of(1, List.of(2)));
+        } finally {
+            queue.stop();
+        }
+        verify(filmLikeStorage, never()).addLike(anyInt(), anyInt());
+        verify(filmLikeStorage, never()).deleteLikes(any());
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.metrics.MetricsAspect;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.mem.InMemoryFilmStorage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsAspectTest {
+    private MeterRegistry meterRegistry;
+    private FilmStorage filmStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new InMemoryFilmStorage());
+        proxyFactory.addAspect(new MetricsAspect(meterRegistry));
+        filmStorage = proxyFactory.getProxy();
+    }
+
+    @Test
+    void storageCallShouldBeTimedWithBackendStorageAndQueryTags() {
+        filmStorage.getFilms();
+        filmStorage.getFilms();
+
+        assertEquals(2, meterRegistry.get(MetricsAspect.STORAGE_TIMER)
+                .tag("backend", "mem")
+                .tag("storage", "FilmStorage")
+                .tag("query", "getFilms")
+                .tag("exception", "none")
+                .timer().count());
+    }
+
+    @Test
+    void repeatedStorageCallsShouldRegisterTimerOnce() {
+        AtomicInteger registrations = new AtomicInteger();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                registrations.incrementAndGet();
+                return id;
+            }
+        });
+
+        filmStorage.getFilms();
+        filmStorage.getFilms();
+        filmStorage.getFilms();
+
+        assertEquals(1, registrations.get());
+        assertEquals(3, meterRegistry.get(MetricsAspect.STORAGE_TIMER)
+                .tag("query", "getFilms")
+                .timer().count());
+    }
+
+    @Test
+    void failedStorageCallShouldBeTaggedWithException() {
+        assertThrows(FilmNotFoundException.class, () -> filmStorage.getFilmById(1));
+
+        assertEquals(1, meterRegistry.get(MetricsAspect.STORAGE_TIMER)
+                .tag("query", "getFilmById")
+                .tag("exception", "FilmNotFoundException")
+                .timer().count());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+class PopularityLeaderboardTest {
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void beforeEach() {
+        leaderboard = new PopularityLeaderboard(mock(FilmLikeStorage.class));
+        leaderboard.reload(Map.of(1, 0, 2, 3, 3, 2));
+    }
+
+    @Test
+    void getTopShouldOrderByLikesDescending() {
+        assertEquals(List.of(2, 3, 1), leaderboard.getTop(10));
+    }
+
+    @Test
+    void getTopShouldBeLimitedByCount() {
+        assertEquals(List.of(2), leaderboard.getTop(1));
+        assertEquals(List.of(), leaderboard.getTop(0));
+    }
+
+    @Test
+    void incrementLikesShouldMoveFilmUp() {
+        leaderboard.incrementLikes(1);
+        leaderboard.incrementLikes(1);
+        leaderboard.incrementLikes(1);
+        leaderboard.incrementLikes(1);
+
+        assertEquals(List.of(1, 2, 3), leaderboard.getTop(10));
+        assertEquals(4, leaderboard.getLikesCount(1));
+    }
+
+    @Test
+    void decrementLikesShouldMoveFilmDown() {
+        leaderboard.decrementLikes(2);
+        leaderboard.decrementLikes(2);
+
+        assertEquals(List.of(3, 2, 1), leaderboard.getTop(10));
+    }
+
+    @Test
+    void filmsWithEqualLikesShouldBeOrderedById() {
+        leaderboard.addFilm(4, 2);
+
+        assertEquals(List.of(2, 3, 4, 1), leaderboard.getTop(10));
+    }
+
+    @Test
+    void removeFilmShouldDropItFromRanking() {
+        leaderboard.removeFilm(2);
+
+        assertEquals(List.of(3, 1), leaderboard.getTop(10));
+        assertEquals(0, leaderboard.getLikesCount(2));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.metrics.ProfilingDataSource;
+import ru.yandex.practicum.filmorate.metrics.QueryStatistics;
+import ru.yandex.practicum.filmorate.metrics.SlowQuery;
+import ru.yandex.practicum.filmorate.metrics.StatementStatistics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class QueryStatisticsTest {
+    private final static String SELECT_QUERY = "SELECT id FROM item WHERE id > ?;";
+    private QueryStatistics queryStatistics;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:query-statistics;DB_CLOSE_DELAY=-1");
+        queryStatistics = new QueryStatistics(0, 60_000, true, 60_000);
+        jdbcTemplate = new JdbcTemplate(new ProfilingDataSource(dataSource, () -> queryStatistics));
+        jdbcTemplate.execute("CREATE TABLE item (id int PRIMARY KEY);");
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("DROP TABLE item;");
+        queryStatistics.shutdown();
+    }
+
+    @Test
+    void statementsShouldRecordExecutionsAndRows() {
+        jdbcTemplate.batchUpdate("INSERT INTO item (id) VALUES (?);", List.of(
+                new Object[]{1}, new Object[]{2}, new Object[]{3}));
+        jdbcTemplate.queryForList(SELECT_QUERY, Integer.class, 1);
+        jdbcTemplate.queryForList(SELECT_QUERY, Integer.class, 2);
+
+        Map<String, StatementStatistics> statements = queryStatistics.getStatements(10).stream()
+                .collect(Collectors.toMap(StatementStatistics::getSql, Function.identity()));
+
+        assertEquals(3, statements.get("INSERT INTO item (id) VALUES (?);").getRows());
+        assertEquals(2, statements.get(SELECT_QUERY).getCount());
+        assertEquals(3, statements.get(SELECT_QUERY).getRows());
+    }
+
+    @Test
+    void statementsShouldCollapseValueLists() {
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO item (id) VALUES (?);", i);
+            namedJdbcTemplate.queryForList("SELECT id FROM item WHERE id IN (:ids);",
+                                           Map.of("ids", List.of(1, 2, 3, 4, 5).subList(0, i)), Integer.class);
+        }
+        jdbcTemplate.update("INSERT INTO item (id) VALUES (6), (7), (8);");
+        jdbcTemplate.update("INSERT INTO item (id) VALUES (9), (10);");
+
+        Map<String, StatementStatistics> statements = queryStatistics.getStatements(10).stream()
+                .collect(Collectors.toMap(StatementStatistics::getSql, Function.identity()));
+
+        assertEquals(1, statements.get("SELECT id FROM item WHERE id IN (?);").getCount());
+        assertEquals(4, statements.get("SELECT id FROM item WHERE id IN (?…);").getCount());
+        assertEquals(5, statements.get("INSERT INTO item (id) VALUES (?…);").getRows());
+        assertEquals(0, queryStatistics.getDroppedStatements());
+    }
+
+    @Test
+    void statementsOverCapacityShouldBeCounted() {
+        QueryStatistics statistics = new QueryStatistics(60_000, 60_000, false, 60_000);
+        for (int i = 0; i < 1001; i++) {
+            statistics.record("SELECT " + i + " AS value;", 1, 1, List.of(), null);
+        }
+        statistics.record("SELECT 0 AS value;", 1, 1, List.of(), null);
+        statistics.shutdown();
+
+        assertEquals(1, statistics.getDroppedStatements());
+        assertEquals(2, statistics.getStatements(1000).stream()
+                .filter(statement -> statement.getSql().equals("SELECT 0 AS value;"))
+                .findFirst()
+                .orElseThrow()
+                .getCount());
+    }
+
+    @Test
+    void selectLatencyShouldIncludeResultSetFetch() {
+        jdbcTemplate.batchUpdate("INSERT INTO item (id) VALUES (?);", List.of(
+                new Object[]{1}, new Object[]{2}));
+        jdbcTemplate.query(SELECT_QUERY, resultSet -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0);
+
+        StatementStatistics select = queryStatistics.getStatements(10).stream()
+                .filter(statement -> statement.getSql().equals(SELECT_QUERY))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(select.getMaxMs() >= 100);
+    }
+
+    @Test
+    void slowSelectShouldBeExplained() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO item (id) VALUES (?);", 1);
+        jdbcTemplate.queryForList(SELECT_QUERY, Integer.class, 0);
+
+        SlowQuery slowQuery = queryStatistics.getSlowQueries(10).stream()
+                .filter(query -> query.getSql().equals(SELECT_QUERY))
+                .findFirst()
+                .orElseThrow();
+        for (int i = 0; i < 100 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, slowQuery.getRowsReturned());
+        assertNotNull(slowQuery.getPlan());
+        assertTrue(slowQuery.getPlan().contains("\"PUBLIC\".\"ITEM\""));
+        assertTrue(slowQuery.getRowsRead() > 0);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import ru.yandex.practicum.filmorate.util.RateLimitedLogger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RateLimitedLoggerTest {
+    @Test
+    void infoShouldDropMessagesOverTheRate() {
+        Logger logger = mock(Logger.class);
+        when(logger.isInfoEnabled()).thenReturn(true);
+        RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 3);
+
+        for (int i = 0; i < 10; i++) {
+            rateLimitedLogger.info("message {} {}", i, i);
+        }
+
+        verify(logger, times(3)).info(anyString(), any(Object.class), any(Object.class));
+        assertEquals(7, rateLimitedLogger.getSuppressedCount());
+    }
+
+    @Test
+    void infoShouldNotCountMessagesWhenLevelIsDisabled() {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger, 3);
+
+        rateLimitedLogger.info("message {} {}", 1, 2);
+
+        verify(logger, never()).info(anyString(), any(Object.class), any(Object.class));
+        assertEquals(0, rateLimitedLogger.getSuppressedCount());
+    }
+}
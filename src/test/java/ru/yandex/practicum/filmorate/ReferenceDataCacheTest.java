@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.db.ReferenceDataCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataCacheTest {
+    private final static String GET_MPA_QUERY = "SELECT id, name FROM mpa;";
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @Test
+    void missesShouldNotRefreshMoreThanOncePerInterval() {
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(jdbcTemplate, 60_000);
+        referenceDataCache.refresh();
+
+        assertThrows(MpaNotFoundException.class, () -> referenceDataCache.getMpa(6));
+        assertThrows(MpaNotFoundException.class, () -> referenceDataCache.getMpa(7));
+        assertThrows(GenreNotFoundException.class, () -> referenceDataCache.getGenre(8));
+
+        verify(jdbcTemplate, times(1)).query(eq(GET_MPA_QUERY), ArgumentMatchers.<RowMapper<Mpa>>any());
+    }
+
+    @Test
+    void missShouldPickUpNewRowsOnceIntervalHasPassed() {
+        Mpa mpa = new Mpa(6, "NEW");
+        when(jdbcTemplate.query(eq(GET_MPA_QUERY), ArgumentMatchers.<RowMapper<Mpa>>any()))
+                .thenReturn(List.of(), List.of(mpa));
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(jdbcTemplate, 0);
+        referenceDataCache.refresh();
+
+        assertEquals(mpa, referenceDataCache.getMpa(6));
+        assertEquals(mpa, referenceDataCache.getMpa(6));
+        verify(jdbcTemplate, times(2)).query(eq(GET_MPA_QUERY), ArgumentMatchers.<RowMapper<Mpa>>any());
+    }
+}
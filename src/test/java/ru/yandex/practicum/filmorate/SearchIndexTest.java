@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.filmorate.index.SearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+class SearchIndexTest {
+    private final static Set<SearchIndex.Field> ALL_FIELDS = EnumSet.allOf(SearchIndex.Field.class);
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void beforeEach() {
+        searchIndex = new SearchIndex(mock(FilmStorage.class));
+        searchIndex.addFilm(film(1, "Ёлки", "Новогодняя комедия"));
+        searchIndex.addFilm(film(2, "The Matrix", "Neo learns the truth"));
+        searchIndex.addFilm(film(3, "Матрица: Перезагрузка", "Sequel to The Matrix"));
+    }
+
+    @Test
+    void tokenizeShouldNormalizeCyrillicAndLatinText() {
+        assertEquals(List.of("елки", "2", "the", "matrix"), SearchIndex.tokenize("Ёлки-2: The MATRIX!"));
+    }
+
+    @Test
+    void searchShouldMatchWholeTokensAndLastTokenPrefix() {
+        assertEquals(bits(1), searchIndex.search("елки", ALL_FIELDS));
+        assertEquals(bits(2, 3), searchIndex.search("the matr", ALL_FIELDS));
+        assertEquals(bits(3), searchIndex.search("матр", ALL_FIELDS));
+        assertEquals(bits(), searchIndex.search("matr the", ALL_FIELDS));
+    }
+
+    @Test
+    void searchShouldRespectFields() {
+        assertEquals(bits(2), searchIndex.search("matrix", EnumSet.of(SearchIndex.Field.TITLE)));
+        assertEquals(bits(3), searchIndex.search("matrix", EnumSet.of(SearchIndex.Field.DESCRIPTION)));
+        assertEquals(bits(1), searchIndex.search("комедия", EnumSet.of(SearchIndex.Field.DESCRIPTION)));
+    }
+
+    @Test
+    void searchShouldReturnNothingForBlankQuery() {
+        assertEquals(bits(), searchIndex.search(" ,. ", ALL_FIELDS));
+    }
+
+    @Test
+    void addFilmShouldReindexUpdatedFilm() {
+        searchIndex.addFilm(film(2, "Inception", "Dreams"));
+        assertEquals(bits(3), searchIndex.search("matrix", ALL_FIELDS));
+        assertEquals(bits(2), searchIndex.search("incep", ALL_FIELDS));
+    }
+
+    @Test
+    void removeFilmShouldDropItFromIndex() {
+        searchIndex.removeFilm(3);
+        assertEquals(bits(2), searchIndex.search("matrix", ALL_FIELDS));
+        assertEquals(bits(), searchIndex.search("матрица", ALL_FIELDS));
+    }
+
+    private static Film film(int id, String name, String description) {
+        return new Film(id, name, description, LocalDate.of(2000, 1, 1), 100, new Mpa(1), null, null);
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}